@@ -0,0 +1,146 @@
+package learn.myhouse.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Class that generates the synthetic data sets used by the benchmarks from the
+ * seed files in ./data. A data set is written once to target/bench-data/x{scale}
+ * and reused by later runs.
+ *
+ * The benchmarked host's reservation history is multiplied by the full scale.
+ * The host and guest tables are multiplied by at most 100, since ten thousand
+ * copies of hosts.csv would be over a gigabyte and would not fit in a
+ * benchmark heap once parsed.
+ */
+public final class BenchmarkData {
+    public static final String HOST_ID = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+    public static final String HOST_EMAIL = "kdeclerkdc@sitemeter.com";
+    public static final String GUEST_EMAIL = "slomas0@mediafire.com";
+
+    private static final int MAX_TABLE_SCALE = 100;
+    private static final Path SEED_HOSTS = Paths.get("./data/hosts-seed.csv");
+    private static final Path SEED_GUESTS = Paths.get("./data/guests-seed.csv");
+    private static final Path SEED_RESERVATIONS = Paths.get("./data/reservation-seed-" + HOST_ID + ".csv");
+
+    private final Path root;
+
+    private BenchmarkData(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Method that returns the data set for a scale, generating it if it
+     * does not exist yet
+     * @param scale
+     * @return the data set
+     * @throws IOException
+     */
+    public static synchronized BenchmarkData of(int scale) throws IOException {
+        BenchmarkData data = new BenchmarkData(Paths.get("target", "bench-data", "x" + scale));
+        Path complete = data.root.resolve(".complete");
+        if (!Files.exists(complete)) {
+            data.generate(scale);
+            Files.createFile(complete);
+        }
+        data.resetReservations();
+        return data;
+    }
+
+    public String getHostFile() {
+        return root.resolve("hosts.csv").toString();
+    }
+
+    public String getGuestFile() {
+        return root.resolve("guests.csv").toString();
+    }
+
+    public String getReservationDirectory() {
+        return root.resolve("reservations").toString();
+    }
+
+    /**
+     * Method that restores the benchmarked host's reservation file so
+     * benchmarks that write to it start from the generated rows
+     * @throws IOException
+     */
+    public void resetReservations() throws IOException {
+        Files.createDirectories(root.resolve("reservations"));
+        Files.copy(root.resolve("pristine").resolve(HOST_ID + ".csv"),
+                root.resolve("reservations").resolve(HOST_ID + ".csv"),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Method that writes the host, guest and reservation files for a scale
+     * @param scale
+     * @throws IOException
+     */
+    private void generate(int scale) throws IOException {
+        Files.createDirectories(root.resolve("pristine"));
+        int tableScale = Math.min(scale, MAX_TABLE_SCALE);
+
+        //hosts: each copy gets a new id derived from the original and a prefixed email
+        List<String> hosts = Files.readAllLines(SEED_HOSTS, StandardCharsets.UTF_8);
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(getHostFile()))) {
+            writer.write(hosts.get(0));
+            writer.newLine();
+            for (int copy = 0; copy < tableScale; copy++) {
+                for (String line : hosts.subList(1, hosts.size())) {
+                    String[] fields = line.split(",", -1);
+                    if (copy > 0) {
+                        fields[0] = UUID.nameUUIDFromBytes((copy + ":" + fields[0]).getBytes(StandardCharsets.UTF_8)).toString();
+                        fields[2] = "c" + copy + "." + fields[2];
+                    }
+                    writer.write(String.join(",", fields));
+                    writer.newLine();
+                }
+            }
+        }
+
+        //guests: each copy offsets the id by the number of seed guests and prefixes the email
+        List<String> guests = Files.readAllLines(SEED_GUESTS, StandardCharsets.UTF_8);
+        int guestCount = guests.size() - 1;
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(getGuestFile()))) {
+            writer.write(guests.get(0));
+            writer.newLine();
+            for (int copy = 0; copy < tableScale; copy++) {
+                for (String line : guests.subList(1, guests.size())) {
+                    String[] fields = line.split(",", -1);
+                    if (copy > 0) {
+                        fields[0] = String.valueOf(Integer.parseInt(fields[0]) + copy * guestCount);
+                        fields[3] = "c" + copy + "." + fields[3];
+                    }
+                    writer.write(String.join(",", fields));
+                    writer.newLine();
+                }
+            }
+        }
+
+        //reservations: each copy is shifted one day further into the past and renumbered
+        List<String> reservations = Files.readAllLines(SEED_RESERVATIONS, StandardCharsets.UTF_8);
+        try (BufferedWriter writer = Files.newBufferedWriter(root.resolve("pristine").resolve(HOST_ID + ".csv"))) {
+            writer.write(reservations.get(0));
+            writer.newLine();
+            int id = 1;
+            for (int copy = 0; copy < scale; copy++) {
+                for (String line : reservations.subList(1, reservations.size())) {
+                    String[] fields = line.split(",", -1);
+                    fields[0] = String.valueOf(id++);
+                    fields[1] = LocalDate.parse(fields[1]).minusDays(copy).toString();
+                    fields[2] = LocalDate.parse(fields[2]).minusDays(copy).toString();
+                    writer.write(String.join(",", fields));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.data.ReservationSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkLoadBenchmark {
+
+    //number of host files, each a copy of the seed host's reservations at scale 10
+    @Param({"100", "1000"})
+    int hosts;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    ReservationFileRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path source = Paths.get(BenchmarkData.of(10).getReservationDirectory(), BenchmarkData.HOST_ID + ".csv");
+        Path directory = Paths.get("target", "bench-data", "bulk" + hosts);
+        Files.createDirectories(directory);
+        for (int i = 0; i < hosts; i++) {
+            Files.copy(source, directory.resolve("host-" + i + ".csv"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        repository = new ReservationFileRepository(directory.toString());
+    }
+
+    @Benchmark
+    public ReservationSnapshot loadAll() {
+        return repository.loadAll(parallelism);
+    }
+}
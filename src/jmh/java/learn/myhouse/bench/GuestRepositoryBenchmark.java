@@ -0,0 +1,33 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.model.Guest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuestRepositoryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    GuestFileRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        repository = new GuestFileRepository(BenchmarkData.of(scale).getGuestFile());
+    }
+
+    @Benchmark
+    public List<Guest> findAll() {
+        return repository.findAll();
+    }
+}
@@ -0,0 +1,38 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.model.Host;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HostRepositoryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    HostFileRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        repository = new HostFileRepository(BenchmarkData.of(scale).getHostFile());
+    }
+
+    @Benchmark
+    public List<Host> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Host findByEmail() {
+        return repository.findByEmail(BenchmarkData.HOST_EMAIL);
+    }
+}
@@ -0,0 +1,60 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.FsyncPolicy;
+import learn.myhouse.data.JournaledReservationRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournaledRepositoryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    @Param({"NONE", "PER_WRITE"})
+    FsyncPolicy fsyncPolicy;
+
+    JournaledReservationRepository repository;
+    int updates;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException, DataException {
+        BenchmarkData data = BenchmarkData.of(scale);
+        Path journal = Paths.get(data.getReservationDirectory()).resolveSibling("reservations.journal");
+        Files.deleteIfExists(journal);
+        repository = new JournaledReservationRepository(new ReservationFileRepository(data.getReservationDirectory()),
+                journal.toString(), fsyncPolicy, 10_000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws DataException {
+        repository.close();
+    }
+
+    @Benchmark
+    public Reservation add() throws DataException {
+        return repository.add(ReservationRepositoryBenchmark.reservation(LocalDate.of(2100, 1, 1)));
+    }
+
+    @Benchmark
+    public boolean update() throws DataException {
+        Reservation reservation = ReservationRepositoryBenchmark.reservation(
+                LocalDate.of(2100, 1, 1).plusDays(updates++ % 2));
+        reservation.setId(1);
+        return repository.update(reservation);
+    }
+}
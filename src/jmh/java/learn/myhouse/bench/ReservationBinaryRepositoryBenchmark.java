@@ -0,0 +1,57 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.ReservationBinaryRepository;
+import learn.myhouse.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationBinaryRepositoryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    ReservationBinaryRepository repository;
+    int updates;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException, DataException {
+        //converting the generated CSV rows so every iteration starts from the same file
+        BenchmarkData data = BenchmarkData.of(scale);
+        Path binary = Paths.get(data.getReservationDirectory()).resolveSibling("binary");
+        Files.createDirectories(binary);
+        repository = new ReservationBinaryRepository(binary.toString());
+        repository.importCsv(data.getReservationDirectory());
+    }
+
+    @Benchmark
+    public List<Reservation> findByHostId() {
+        return repository.findByHostId(BenchmarkData.HOST_ID);
+    }
+
+    @Benchmark
+    public Reservation add() throws DataException {
+        return repository.add(ReservationRepositoryBenchmark.reservation(LocalDate.of(2100, 1, 1)));
+    }
+
+    @Benchmark
+    public boolean update() throws DataException {
+        Reservation reservation = ReservationRepositoryBenchmark.reservation(
+                LocalDate.of(2100, 1, 1).plusDays(updates++ % 2));
+        reservation.setId(1);
+        return repository.update(reservation);
+    }
+}
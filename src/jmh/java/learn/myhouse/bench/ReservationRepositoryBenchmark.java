@@ -0,0 +1,86 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.FsyncPolicy;
+import learn.myhouse.data.ReadMode;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationRepositoryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    @Param({"CHANNEL", "MAPPED"})
+    ReadMode readMode;
+
+    BenchmarkData data;
+    ReservationFileRepository repository;
+    int updates;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        //writes grow the host file, so every iteration starts from the generated rows
+        data = BenchmarkData.of(scale);
+        data.resetReservations();
+        repository = new ReservationFileRepository(data.getReservationDirectory(), FsyncPolicy.NONE, readMode);
+    }
+
+    @Benchmark
+    public List<Reservation> findByHostId() {
+        return repository.findByHostId(BenchmarkData.HOST_ID);
+    }
+
+    @Benchmark
+    public Reservation add() throws DataException {
+        return repository.add(reservation(LocalDate.of(2100, 1, 1)));
+    }
+
+    @Benchmark
+    public boolean update() throws DataException {
+        Reservation reservation = reservation(LocalDate.of(2100, 1, 1).plusDays(updates++ % 2));
+        reservation.setId(1);
+        return repository.update(reservation);
+    }
+
+    @Benchmark
+    public boolean deleteById(DeleteState state) throws DataException {
+        return repository.deleteById(state.id, BenchmarkData.HOST_ID);
+    }
+
+    /**
+     * Adds the reservation removed by each deleteById invocation
+     */
+    @State(Scope.Thread)
+    public static class DeleteState {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void setup(ReservationRepositoryBenchmark benchmark) throws DataException {
+            id = benchmark.repository.add(reservation(LocalDate.of(2100, 1, 1))).getId();
+        }
+    }
+
+    static Reservation reservation(LocalDate start) {
+        Host host = new Host();
+        host.setId(BenchmarkData.HOST_ID);
+        Guest guest = new Guest();
+        guest.setId(1);
+        return new Reservation(start, start.plusDays(3), guest, host, new BigDecimal("650"));
+    }
+}
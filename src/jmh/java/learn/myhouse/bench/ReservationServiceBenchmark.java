@@ -0,0 +1,66 @@
+package learn.myhouse.bench;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.domain.ReservationService;
+import learn.myhouse.domain.Result;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationServiceBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int scale;
+
+    ReservationService service;
+    Host host;
+    Guest guest;
+    LocalDate nextStart;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        //adds grow the host file, so every iteration starts from the generated rows
+        BenchmarkData data = BenchmarkData.of(scale);
+        data.resetReservations();
+
+        HostFileRepository hostRepository = new HostFileRepository(data.getHostFile());
+        GuestFileRepository guestRepository = new GuestFileRepository(data.getGuestFile());
+        service = new ReservationService(
+                new ReservationFileRepository(data.getReservationDirectory()),
+                hostRepository,
+                guestRepository);
+
+        host = hostRepository.findByEmail(BenchmarkData.HOST_EMAIL);
+        guest = guestRepository.findByEmail(BenchmarkData.GUEST_EMAIL);
+        nextStart = LocalDate.of(2100, 1, 1);
+    }
+
+    @Benchmark
+    public List<Reservation> findByHostId() {
+        return service.findByHostId(BenchmarkData.HOST_ID);
+    }
+
+    @Benchmark
+    public Result<Reservation> add() throws DataException {
+        //each stay starts after the previous one ends so every add passes validation
+        LocalDate start = nextStart;
+        nextStart = nextStart.plusDays(5);
+        return service.add(new Reservation(start, start.plusDays(3), guest, host, new BigDecimal("650")));
+    }
+}
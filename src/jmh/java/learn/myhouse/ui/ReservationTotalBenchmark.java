@@ -0,0 +1,41 @@
+package learn.myhouse.ui;
+
+import learn.myhouse.domain.PricingEngine;
+import learn.myhouse.model.Host;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationTotalBenchmark {
+
+    @Param({"3", "30", "365"})
+    int nights;
+
+    View view;
+    Host host;
+    LocalDate start;
+    LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        view = new View(new ConsoleIO(), new PricingEngine());
+        host = new Host();
+        host.setStandardRate(new BigDecimal("295"));
+        host.setWeekendRate(new BigDecimal("368.75"));
+        start = LocalDate.of(2100, 1, 1);
+        end = start.plusDays(nights);
+    }
+
+    @Benchmark
+    public BigDecimal getReservationTotal() {
+        return view.getReservationTotal(start, end, host);
+    }
+}
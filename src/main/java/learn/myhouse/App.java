@@ -1,15 +1,152 @@
 package learn.myhouse;
 
+import learn.myhouse.data.DataException;
+import learn.myhouse.domain.AnalyticsReport;
+import learn.myhouse.domain.AnalyticsService;
+import learn.myhouse.domain.ReservationExporter;
+import learn.myhouse.domain.ReservationImporter;
+import learn.myhouse.domain.RevenueTotals;
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.ui.BookingServer;
 import learn.myhouse.ui.Controller;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
-import org.springframework.context.annotation.ComponentScan;
 
-@ComponentScan
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.Map;
+
 public class App {
-    public static void main(String[] args) {
-        ApplicationContext context = new AnnotationConfigApplicationContext(App.class);
-        Controller controller = context.getBean(Controller.class);
+    public static void main(String[] args) throws IOException {
+        StartupTimer startup = new StartupTimer();
+        startup.phase("jvm");
+
+        //writing the metrics on exit when -Dmetrics.file=<path> is given
+        String metricsFile = System.getProperty("metrics.file");
+        if (metricsFile != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Metrics.registry().writeTo(Paths.get(metricsFile));
+                } catch (IOException ex) {
+                    System.err.println("Could not write metrics: " + ex.getMessage());
+                }
+            }));
+        }
+
+        //-Dwiring=manual builds the objects by hand instead of starting Spring
+        boolean manual = "manual".equals(System.getProperty("wiring"));
+        boolean serve = args.length > 0 && args[0].equals("--serve");
+
+        AnnotationConfigApplicationContext context = null;
+        ManualWiring wiring = null;
+        if (manual) {
+            wiring = new ManualWiring(ManualWiring.loadProperties());
+        } else {
+            context = new AnnotationConfigApplicationContext(AppConfig.class);
+            context.registerShutdownHook(); //closing the beans on exit, after the server in --serve mode
+        }
+        startup.phase("context");
+
+        //batch mode: adding the reservations in a CSV or JSON lines file, then exiting
+        if (args.length > 1 && args[0].equals("--import")) {
+            String rejects = args.length > 2 ? args[2] : args[1] + ".rejects.csv";
+            ReservationImporter importer = manual ? wiring.reservationImporter()
+                    : context.getBean(ReservationImporter.class);
+            startup.phase("wiring");
+            report(startup);
+            try {
+                System.out.println(importer.importFile(args[1], rejects));
+                System.out.println("Rejected rows written to " + rejects);
+            } catch (DataException ex) {
+                System.err.println("Could not import reservations: " + ex.getMessage());
+            }
+            return;
+        }
+
+        //batch mode: writing every reservation with its host and guest to a file, then exiting
+        if (args.length > 1 && args[0].equals("--export")) {
+            ReservationExporter exporter = manual ? wiring.reservationExporter()
+                    : context.getBean(ReservationExporter.class);
+            startup.phase("wiring");
+            report(startup);
+            try {
+                System.out.println(exporter.export(args[1], progress -> System.err.println(progress)));
+            } catch (DataException ex) {
+                System.err.println("Could not export reservations: " + ex.getMessage());
+            }
+            return;
+        }
+
+        //batch mode: printing revenue and occupancy for a range of months, this year by default
+        if (args.length > 0 && args[0].equals("--report")) {
+            YearMonth from = args.length > 1 ? YearMonth.parse(args[1]) : YearMonth.now().withMonth(1);
+            YearMonth to = args.length > 2 ? YearMonth.parse(args[2]) : from.withMonth(12);
+            AnalyticsService analytics = manual ? wiring.analyticsService()
+                    : context.getBean(AnalyticsService.class);
+            startup.phase("wiring");
+            report(startup);
+            printReport(analytics.report(from, to));
+            return;
+        }
+
+        //headless mode: serving bookings over HTTP instead of the console
+        if (serve) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            BookingServer server = manual ? wiring.bookingServer() : context.getBean(BookingServer.class);
+            startup.phase("wiring");
+            InetSocketAddress address = server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            startup.phase("listening");
+            report(startup);
+            System.out.printf("Serving reservations on http://%s:%s/reservations%n",
+                    address.getHostString(), address.getPort());
+            return;
+        }
+
+        Controller controller = manual ? wiring.controller() : context.getBean(Controller.class);
+        startup.phase("wiring");
+        report(startup);
         controller.run();
     }
+
+    /**
+     * Helper method that prints each group of a report, with only the ten
+     * hosts that earned the most
+     * @param report
+     */
+    private static void printReport(AnalyticsReport report) {
+        System.out.printf("Revenue and occupancy from %s to %s%n", report.getFrom(), report.getTo());
+        System.out.printf("Total: %s%n", report.getTotal());
+        printGroup("Month", report.getByMonth());
+        printGroup("Day type", report.getByDayType());
+        printGroup("State", report.getByState());
+        printGroup("City", report.getByCity());
+
+        System.out.printf("%nTop hosts%n");
+        report.getByHost().entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, RevenueTotals> host) -> host.getValue().getRevenueCents())
+                        .reversed())
+                .limit(10)
+                .forEach(host -> System.out.printf("%s: %s%n", host.getKey(), host.getValue()));
+    }
+
+    private static void printGroup(String name, Map<?, RevenueTotals> groups) {
+        System.out.printf("%n%s%n", name);
+        for (Map.Entry<?, RevenueTotals> group : groups.entrySet()) {
+            System.out.printf("%s: %s%n", group.getKey(), group.getValue());
+        }
+    }
+
+    /**
+     * Helper method that prints how long each startup phase took when the
+     * app is started with -Dstartup.report
+     * @param startup
+     */
+    private static void report(StartupTimer startup) {
+        if (System.getProperty("startup.report") != null) {
+            System.err.println(startup.report());
+        }
+    }
 }
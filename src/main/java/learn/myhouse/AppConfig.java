@@ -0,0 +1,172 @@
+package learn.myhouse;
+
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.data.ReservationIndex;
+import learn.myhouse.domain.AnalyticsService;
+import learn.myhouse.domain.AvailabilityService;
+import learn.myhouse.domain.GuestService;
+import learn.myhouse.domain.HostSearchService;
+import learn.myhouse.domain.HostService;
+import learn.myhouse.domain.PricingEngine;
+import learn.myhouse.domain.ReservationExporter;
+import learn.myhouse.domain.ReservationImporter;
+import learn.myhouse.domain.ReservationSearchService;
+import learn.myhouse.domain.ReservationService;
+import learn.myhouse.ui.BookingServer;
+import learn.myhouse.ui.ConsoleIO;
+import learn.myhouse.ui.Controller;
+import learn.myhouse.ui.View;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Class that declares every object the app is made of and how they are
+ * wired together, in place of scanning the packages for annotated classes.
+ * Every bean is lazy, so only the objects reachable from the bean asked for
+ * are created: the console never builds the booking server and the server
+ * never builds the console. File paths come from data.properties and can be
+ * overridden with system properties of the same names.
+ *
+ * Bean methods take their dependencies as parameters rather than calling
+ * each other, so ManualWiring can call them directly without Spring.
+ */
+@Configuration(proxyBeanMethods = false)
+@PropertySource("classpath:data.properties")
+@Lazy
+public class AppConfig {
+
+    @Bean
+    public HostFileRepository hostRepository(@Value("${hostFilePath}") String filePath) {
+        return new HostFileRepository(filePath);
+    }
+
+    @Bean
+    public GuestFileRepository guestRepository(@Value("${guestFilePath}") String filePath) {
+        return new GuestFileRepository(filePath);
+    }
+
+    @Bean
+    public ReservationFileRepository reservationRepository(@Value("${reservationDirectoryPath}") String directory) {
+        return new ReservationFileRepository(directory);
+    }
+
+    /**
+     * Method that creates the availability calendars and registers them for
+     * changes written to the host files
+     * @param reservationRepository
+     * @param hostRepository
+     * @return the availability service
+     */
+    @Bean
+    public AvailabilityService availabilityService(ReservationFileRepository reservationRepository,
+                                                   HostFileRepository hostRepository) {
+        AvailabilityService result = new AvailabilityService(reservationRepository, hostRepository);
+        reservationRepository.addListener(result);
+        return result;
+    }
+
+    /**
+     * Method that creates the revenue and occupancy reports and registers
+     * them for changes written to the host files
+     * @param reservationRepository
+     * @param hostRepository
+     * @param pricingEngine
+     * @return the analytics service
+     */
+    @Bean
+    public AnalyticsService analyticsService(ReservationFileRepository reservationRepository,
+                                             HostFileRepository hostRepository, PricingEngine pricingEngine) {
+        AnalyticsService result = new AnalyticsService(reservationRepository, hostRepository, pricingEngine);
+        reservationRepository.addListener(result);
+        return result;
+    }
+
+    @Bean
+    public HostSearchService hostSearchService(HostFileRepository hostRepository,
+                                               AvailabilityService availabilityService,
+                                               PricingEngine pricingEngine) {
+        return new HostSearchService(hostRepository, availabilityService, pricingEngine);
+    }
+
+    @Bean
+    public PricingEngine pricingEngine() {
+        return new PricingEngine();
+    }
+
+    @Bean
+    public HostService hostService(HostFileRepository hostRepository) {
+        return new HostService(hostRepository);
+    }
+
+    @Bean
+    public GuestService guestService(GuestFileRepository guestRepository) {
+        return new GuestService(guestRepository);
+    }
+
+    @Bean
+    public ReservationService reservationService(ReservationFileRepository reservationRepository,
+                                                 HostFileRepository hostRepository,
+                                                 GuestFileRepository guestRepository) {
+        return new ReservationService(reservationRepository, hostRepository, guestRepository);
+    }
+
+    /**
+     * Method that creates the cross-host reservation index, which reads every
+     * host file in parallel when it is created and then follows the changes
+     * written to them
+     * @param reservationRepository
+     * @return the index
+     */
+    @Bean
+    public ReservationIndex reservationIndex(ReservationFileRepository reservationRepository) {
+        return new ReservationIndex(reservationRepository);
+    }
+
+    @Bean
+    public ReservationSearchService reservationSearchService(ReservationIndex reservationIndex,
+                                                             HostFileRepository hostRepository,
+                                                             GuestFileRepository guestRepository) {
+        return new ReservationSearchService(reservationIndex, hostRepository, guestRepository);
+    }
+
+    @Bean
+    public ReservationImporter reservationImporter(ReservationService reservationService, HostService hostService,
+                                                   GuestService guestService, PricingEngine pricingEngine) {
+        return new ReservationImporter(reservationService, hostService, guestService, pricingEngine);
+    }
+
+    @Bean
+    public ReservationExporter reservationExporter(ReservationFileRepository reservationRepository,
+                                                   HostFileRepository hostRepository,
+                                                   GuestFileRepository guestRepository) {
+        return new ReservationExporter(reservationRepository, hostRepository, guestRepository);
+    }
+
+    @Bean
+    public ConsoleIO consoleIO() {
+        return new ConsoleIO();
+    }
+
+    @Bean
+    public View view(ConsoleIO io, PricingEngine pricingEngine) {
+        return new View(io, pricingEngine);
+    }
+
+    @Bean
+    public Controller controller(ReservationService reservationService, HostService hostService,
+                                 GuestService guestService, HostSearchService hostSearchService, View view) {
+        return new Controller(reservationService, hostService, guestService, hostSearchService, view);
+    }
+
+    @Bean
+    public BookingServer bookingServer(ReservationService reservationService,
+                                       ReservationSearchService reservationSearchService, HostService hostService,
+                                       GuestService guestService, PricingEngine pricingEngine) {
+        return new BookingServer(reservationService, reservationSearchService, hostService, guestService, pricingEngine);
+    }
+}
@@ -0,0 +1,186 @@
+package learn.myhouse;
+
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.data.ReservationIndex;
+import learn.myhouse.domain.AnalyticsService;
+import learn.myhouse.domain.AvailabilityService;
+import learn.myhouse.domain.GuestService;
+import learn.myhouse.domain.HostSearchService;
+import learn.myhouse.domain.HostService;
+import learn.myhouse.domain.PricingEngine;
+import learn.myhouse.domain.ReservationExporter;
+import learn.myhouse.domain.ReservationImporter;
+import learn.myhouse.domain.ReservationSearchService;
+import learn.myhouse.domain.ReservationService;
+import learn.myhouse.ui.BookingServer;
+import learn.myhouse.ui.ConsoleIO;
+import learn.myhouse.ui.Controller;
+import learn.myhouse.ui.View;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Class that builds the same object graph as AppConfig without starting
+ * Spring, for scripted runs where the container's startup cost matters.
+ * Each object is created the first time it is needed and then reused
+ */
+public class ManualWiring {
+    private final AppConfig config = new AppConfig();
+    private final Properties properties;
+
+    private HostFileRepository hostRepository;
+    private GuestFileRepository guestRepository;
+    private ReservationFileRepository reservationRepository;
+    private PricingEngine pricingEngine;
+    private HostService hostService;
+    private GuestService guestService;
+    private ReservationService reservationService;
+    private HostSearchService hostSearchService;
+    private ReservationSearchService reservationSearchService;
+    private BookingServer bookingServer;
+    private ReservationImporter reservationImporter;
+    private ReservationExporter reservationExporter;
+    private AnalyticsService analyticsService;
+
+    /**
+     * constructor that accepts the file paths to wire the repositories with
+     * @param properties
+     */
+    public ManualWiring(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Method that reads data.properties from the classpath, letting system
+     * properties of the same names override it as they do under Spring
+     * @return the properties
+     * @throws IOException
+     */
+    public static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = ManualWiring.class.getResourceAsStream("/data.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        }
+        for (String name : properties.stringPropertyNames()) {
+            String override = System.getProperty(name);
+            if (override != null) {
+                properties.setProperty(name, override);
+            }
+        }
+        return properties;
+    }
+
+    public Controller controller() {
+        ConsoleIO io = config.consoleIO();
+        View view = config.view(io, pricingEngine());
+        return config.controller(reservationService(), hostService(), guestService(), hostSearchService(), view);
+    }
+
+    public BookingServer bookingServer() {
+        if (bookingServer == null) {
+            bookingServer = config.bookingServer(reservationService(), reservationSearchService(), hostService(),
+                    guestService(), pricingEngine());
+        }
+        return bookingServer;
+    }
+
+    public ReservationImporter reservationImporter() {
+        if (reservationImporter == null) {
+            reservationImporter = config.reservationImporter(reservationService(), hostService(), guestService(), pricingEngine());
+        }
+        return reservationImporter;
+    }
+
+    public ReservationExporter reservationExporter() {
+        if (reservationExporter == null) {
+            reservationExporter = config.reservationExporter(reservationRepository(), hostRepository(), guestRepository());
+        }
+        return reservationExporter;
+    }
+
+    public AnalyticsService analyticsService() {
+        if (analyticsService == null) {
+            analyticsService = config.analyticsService(reservationRepository(), hostRepository(), pricingEngine());
+        }
+        return analyticsService;
+    }
+
+    private HostFileRepository hostRepository() {
+        if (hostRepository == null) {
+            hostRepository = config.hostRepository(required("hostFilePath"));
+        }
+        return hostRepository;
+    }
+
+    private GuestFileRepository guestRepository() {
+        if (guestRepository == null) {
+            guestRepository = config.guestRepository(required("guestFilePath"));
+        }
+        return guestRepository;
+    }
+
+    private ReservationFileRepository reservationRepository() {
+        if (reservationRepository == null) {
+            reservationRepository = config.reservationRepository(required("reservationDirectoryPath"));
+        }
+        return reservationRepository;
+    }
+
+    private PricingEngine pricingEngine() {
+        if (pricingEngine == null) {
+            pricingEngine = config.pricingEngine();
+        }
+        return pricingEngine;
+    }
+
+    private HostService hostService() {
+        if (hostService == null) {
+            hostService = config.hostService(hostRepository());
+        }
+        return hostService;
+    }
+
+    private GuestService guestService() {
+        if (guestService == null) {
+            guestService = config.guestService(guestRepository());
+        }
+        return guestService;
+    }
+
+    private ReservationService reservationService() {
+        if (reservationService == null) {
+            reservationService = config.reservationService(reservationRepository(), hostRepository(), guestRepository());
+        }
+        return reservationService;
+    }
+
+    private HostSearchService hostSearchService() {
+        if (hostSearchService == null) {
+            AvailabilityService availabilityService = config.availabilityService(reservationRepository(), hostRepository());
+            hostSearchService = config.hostSearchService(hostRepository(), availabilityService, pricingEngine());
+        }
+        return hostSearchService;
+    }
+
+    private ReservationSearchService reservationSearchService() {
+        if (reservationSearchService == null) {
+            ReservationIndex index = config.reservationIndex(reservationRepository());
+            reservationSearchService = config.reservationSearchService(index, hostRepository(), guestRepository());
+        }
+        return reservationSearchService;
+    }
+
+    private String required(String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException(name + " is not set in data.properties");
+        }
+        return value;
+    }
+}
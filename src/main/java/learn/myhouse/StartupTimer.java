@@ -0,0 +1,53 @@
+package learn.myhouse;
+
+import learn.myhouse.metrics.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that times the phases of starting the app. Each phase runs from
+ * the end of the previous one, the first from when the JVM started, and is
+ * also recorded as startup_phase_seconds in the metrics registry
+ */
+public class StartupTimer {
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> nanos = new ArrayList<>();
+    private long last;
+
+    /**
+     * constructor that starts timing from when the JVM was launched
+     */
+    public StartupTimer() {
+        long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        last = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Math.max(0, sinceJvmStart));
+    }
+
+    /**
+     * Method that ends the current phase
+     * @param name the phase that just finished
+     */
+    public void phase(String name) {
+        long now = System.nanoTime();
+        phases.add(name);
+        nanos.add(now - last);
+        Metrics.timer("startup_phase_seconds", "phase", name).recordNanos(now - last);
+        last = now;
+    }
+
+    /**
+     * Method that lists each phase with its time in milliseconds and the total
+     * @return the report
+     */
+    public String report() {
+        StringBuilder result = new StringBuilder("Startup");
+        long total = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            total += nanos.get(i);
+            result.append(String.format("%n  %-10s %8.1f ms", phases.get(i), nanos.get(i) / 1e6));
+        }
+        return result.append(String.format("%n  %-10s %8.1f ms", "total", total / 1e6)).toString();
+    }
+}
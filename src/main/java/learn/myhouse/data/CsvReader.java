@@ -0,0 +1,541 @@
+package learn.myhouse.data;
+
+import learn.myhouse.metrics.Counter;
+import learn.myhouse.metrics.Histogram;
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.model.CompactReservation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Class that reads comma separated records straight out of a byte buffer.
+ * Each call to next() only records where every field of the current record
+ * starts and ends, and the get methods parse numbers and dates from those
+ * offsets without creating an array or a String per field. Fields wrapped in
+ * double quotes may contain commas, line breaks and doubled quotes.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter ROWS_PARSED = Metrics.counter("csv_rows_parsed_total");
+    //records with a different number of fields than expected
+    private static final Counter ROWS_SKIPPED = Metrics.counter("csv_rows_skipped_total");
+    private static final Histogram FILE_SIZES = Metrics.histogram("csv_file_size_bytes", Metrics.FILE_SIZE_BOUNDS);
+
+    private final ReadableByteChannel channel; //null when the whole input was given up front
+    private ByteBuffer buffer;
+    private int position; //start of the next record
+    private int limit; //end of the bytes read so far
+    private boolean endOfInput;
+    private long bytesRead;
+
+    //offsets of the fields in the current record
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16]; //whether a quoted field contains doubled quotes
+    private int fieldCount;
+
+    /**
+     * constructor that reads records from a channel, refilling a buffer
+     * of the default size as records are consumed
+     * @param channel
+     */
+    public CsvReader(ReadableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * constructor that reads records from a channel with the given initial
+     * buffer size. The buffer grows if a single record does not fit
+     * @param channel
+     * @param bufferSize
+     */
+    CsvReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * constructor that reads records from a buffer that already holds the
+     * whole input, between its position and limit
+     * @param contents
+     */
+    public CsvReader(ByteBuffer contents) {
+        this.channel = null;
+        this.buffer = contents.slice();
+        this.limit = buffer.limit();
+        this.endOfInput = true;
+        this.bytesRead = limit;
+    }
+
+    /**
+     * Method that opens a file for reading
+     * @param filePath
+     * @return the reader positioned before the first record
+     * @throws IOException
+     */
+    public static CsvReader open(String filePath) throws IOException {
+        return new CsvReader(FileChannel.open(Paths.get(filePath), StandardOpenOption.READ));
+    }
+
+    /**
+     * Method that maps a file into memory so its records are parsed straight
+     * from the mapped pages without copying them into a buffer first. Files
+     * too large to map in one piece are read through a channel instead
+     * @param filePath
+     * @return the reader positioned before the first record
+     * @throws IOException
+     */
+    public static CsvReader map(String filePath) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            return new CsvReader(channel);
+        }
+        //the mapping stays valid once the channel is closed
+        try (channel) {
+            return new CsvReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Method that opens a file in the given read mode
+     * @param filePath
+     * @param mode
+     * @return the reader positioned before the first record
+     * @throws IOException
+     */
+    public static CsvReader open(String filePath, ReadMode mode) throws IOException {
+        return mode == ReadMode.MAPPED ? map(filePath) : open(filePath);
+    }
+
+    /**
+     * Method that skips the header of a file and uses the mapper to convert
+     * each record that has the expected number of fields. Records with a
+     * different number of fields are skipped
+     * @param filePath
+     * @param fieldCount
+     * @param mapper
+     * @param <T> the type each record is converted to
+     * @return the converted records, or the ones read before an error occurred
+     */
+    public static <T> List<T> readAll(String filePath, int fieldCount, Function<CsvReader, T> mapper) {
+        return readAll(filePath, ReadMode.CHANNEL, fieldCount, mapper);
+    }
+
+    /**
+     * Method that reads every record of a file in the given read mode, see
+     * readAll(String, int, Function)
+     * @param filePath
+     * @param mode
+     * @param fieldCount
+     * @param mapper
+     * @param <T> the type each record is converted to
+     * @return the converted records, or the ones read before an error occurred
+     */
+    public static <T> List<T> readAll(String filePath, ReadMode mode, int fieldCount, Function<CsvReader, T> mapper) {
+        ArrayList<T> result = new ArrayList<>();
+        int skipped = 0;
+        try (CsvReader reader = open(filePath, mode)) {
+
+            reader.next(); // read header
+
+            while (reader.next()) { //reading each record
+                if (reader.getFieldCount() == fieldCount) {
+                    result.add(mapper.apply(reader));
+                } else {
+                    skipped++;
+                }
+            }
+            FILE_SIZES.record(reader.getBytesRead());
+        } catch (IOException ex) {
+            //a missing file is read as empty, counted so it does not go unnoticed
+            Metrics.counter("io_errors_swallowed_total", "source", "csv",
+                    "exception", ex.getClass().getSimpleName()).increment();
+        }
+        ROWS_PARSED.increment(result.size());
+        ROWS_SKIPPED.increment(skipped);
+        return result;
+    }
+
+    /**
+     * Method that returns the number of bytes taken from the input so far
+     * @return the byte count
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Method that moves to the next record and finds the offsets of its fields
+     * @return whether there was another record
+     * @throws IOException
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (position >= limit && (endOfInput || !fill())) {
+                return false;
+            }
+            int end = scanRecord(position);
+            if (end >= 0) {
+                position = end;
+                return true;
+            }
+            //the record runs past the bytes read so far
+            if (!fill()) {
+                endOfInput = true;
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Method that decodes a field as a UTF-8 string
+     * @param index
+     * @return the field value
+     */
+    public String getString(int index) {
+        int start = starts[index];
+        int length = ends[index] - start;
+        String result;
+        if (buffer.hasArray()) {
+            result = new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return escaped[index] ? result.replace("\"\"", "\"") : result;
+    }
+
+    /**
+     * Method that parses a field as a decimal int
+     * @param index
+     * @return the field value
+     */
+    public int getInt(int index) {
+        long result = parseLong(starts[index], ends[index]);
+        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Method that parses a field as a decimal number. Plain numbers with up
+     * to 18 digits are built from their unscaled value, anything else falls
+     * back to the BigDecimal string constructor
+     * @param index
+     * @return the field value with the scale written in the file
+     */
+    public BigDecimal getBigDecimal(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (point) {
+                    scale++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0 || digits > 18) {
+            return new BigDecimal(getString(index)); //exponents, long values and invalid input
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Method that parses a decimal field as a whole number of cents without
+     * creating a BigDecimal. Values with more than two decimal places are
+     * rounded half up the slow way
+     * @param index
+     * @return the field value in cents
+     */
+    public long getCents(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long cents = 0;
+        int digits = 0;
+        int scale = -1; //digits after the point, -1 until one is seen
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9' && scale < 2) {
+                cents = cents * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0 || digits > 16) {
+            return CompactReservation.toCents(getBigDecimal(index));
+        }
+        for (int places = Math.max(scale, 0); places < 2; places++) {
+            cents *= 10;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Method that parses a field written as yyyy-MM-dd as a number of days
+     * since 1970-01-01
+     * @param index
+     * @return the field value as an epoch day
+     */
+    public int getEpochDay(int index) {
+        return (int) getLocalDate(index).toEpochDay();
+    }
+
+    /**
+     * Method that parses a field written as yyyy-MM-dd
+     * @param index
+     * @return the field value
+     */
+    public LocalDate getLocalDate(int index) {
+        int start = starts[index];
+        if (ends[index] - start == 10 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-') {
+            int year = parseDigits(start, start + 4);
+            int month = parseDigits(start + 5, start + 7);
+            int day = parseDigits(start + 8, start + 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(getString(index)); //reporting the format error the usual way
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Helper method that parses a run of bytes as a decimal number
+     * @param start
+     * @param end
+     * @return the parsed number
+     */
+    private long parseLong(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            throw invalidNumber(start, end);
+        }
+
+        long result = 0;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw invalidNumber(start, end);
+            }
+            result = result * 10 + (b - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Helper method that parses a run of bytes that should only hold digits
+     * @param start
+     * @param end
+     * @return the parsed number, or -1 if a byte is not a digit
+     */
+    private int parseDigits(int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            result = result * 10 + (b - '0');
+        }
+        return result;
+    }
+
+    private NumberFormatException invalidNumber(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new NumberFormatException("For input string: \"" + new String(bytes, StandardCharsets.UTF_8) + "\"");
+    }
+
+    /**
+     * Helper method that finds the fields of the record starting at an offset
+     * @param from
+     * @return the offset after the record's line break, or -1 if more input
+     * is needed to finish the record
+     */
+    private int scanRecord(int from) {
+        fieldCount = 0;
+        int i = from;
+        while (true) {
+            int start;
+            int end;
+            boolean quoted = false;
+            boolean hasEscapes = false;
+
+            if (i < limit && buffer.get(i) == '"') { //quoted field
+                quoted = true;
+                start = ++i;
+                while (true) {
+                    if (i >= limit) {
+                        if (!endOfInput) {
+                            return -1;
+                        }
+                        end = limit; //unterminated quote runs to the end of the input
+                        break;
+                    }
+                    if (buffer.get(i) == '"') {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return -1; //cannot tell a closing quote from a doubled one yet
+                        }
+                        if (i + 1 < limit && buffer.get(i + 1) == '"') {
+                            hasEscapes = true;
+                            i += 2;
+                            continue;
+                        }
+                        end = i++;
+                        break;
+                    }
+                    i++;
+                }
+            } else {
+                start = i;
+                end = i;
+            }
+
+            //reading up to the next delimiter, which also skips anything after a closing quote
+            while (i < limit) {
+                byte b = buffer.get(i);
+                if (b == ',' || b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+            if (!quoted) {
+                end = i;
+            }
+            addField(start, end, hasEscapes);
+
+            if (i >= limit) {
+                return endOfInput ? limit : -1;
+            }
+
+            byte b = buffer.get(i++);
+            if (b == ',') {
+                continue;
+            }
+            if (b == '\r') {
+                if (i >= limit && !endOfInput) {
+                    return -1;
+                }
+                if (i < limit && buffer.get(i) == '\n') {
+                    i++;
+                }
+            }
+            return i;
+        }
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    /**
+     * Helper method that moves the unread bytes to the front of the buffer,
+     * growing it if they fill it, and reads more input behind them
+     * @return whether any bytes were read
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if (channel == null || endOfInput) {
+            return false;
+        }
+
+        int remaining = limit - position;
+        if (remaining == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.position(position).limit(limit);
+            larger.put(buffer);
+            buffer = larger;
+        } else if (position > 0) {
+            buffer.position(position).limit(limit);
+            buffer.compact();
+        }
+        position = 0;
+        limit = remaining;
+
+        buffer.limit(buffer.capacity()).position(limit);
+        int read = channel.read(buffer);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        bytesRead += read;
+        return true;
+    }
+}
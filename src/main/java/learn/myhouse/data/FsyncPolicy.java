@@ -0,0 +1,14 @@
+package learn.myhouse.data;
+
+/**
+ * How a file repository forces written data to the storage device.
+ */
+public enum FsyncPolicy {
+    //leave flushing to the operating system, a crash of the machine can lose recent writes
+    NONE,
+    //force every write and the directory entry before the write returns
+    PER_WRITE,
+    //force the files written since the last sync once a batch of writes has built up, a
+    //rewritten file is still forced before it replaces the old one so only recent writes are at risk
+    BATCHED
+}
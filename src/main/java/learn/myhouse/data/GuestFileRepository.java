@@ -1,79 +1,222 @@
 package learn.myhouse.data;
 
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.metrics.Timer;
 import learn.myhouse.model.Guest;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Repository;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-@Repository
 public class GuestFileRepository implements GuestRepository {
+    private static final Timer FIND_ALL = timer("findAll");
+    private static final Timer FIND_BY_EMAIL = timer("findByEmail");
+    private static final Timer FIND_BY_ID = timer("findById");
+
     private final String filePath;
 
+    //guests loaded from the file along with the id and email indexes, replaced when the file changes
+    private volatile GuestIndex index = GuestIndex.EMPTY;
+
+    //cache statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
     /**
      * constructor that accepts and sets the file path of the repository
      * @param filePath
      */
-    public GuestFileRepository(@Value("./data/guests.csv") String filePath) {
+    public GuestFileRepository(String filePath) {
         this.filePath = filePath;
     }
 
     /**
-     * Method that reads each line of the given file and uses deserialize method
-     * to convert each line to a Guest object and add to the list of Guests
+     * Method that returns the guests loaded from the file. The file is only
+     * read again when its last modified time or size has changed
      * @return the list of guests produced from the file
      */
     @Override
     public List<Guest> findAll(){
-        ArrayList<Guest> result = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-
-            reader.readLine(); // read header
-
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) { //reading each line
-                //splitting each line into an array of strings with each element representing a field
-                String[] fields = line.split(",", -1);
-                if (fields.length == 6) {
-                    //use deserialize to make a Guest object using the fields within the array
-                    result.add(deserialize(fields));
-                }
-            }
-        } catch (IOException ex) {
-
+        long started = System.nanoTime();
+        try {
+            return new ArrayList<>(currentIndex().guests);
+        } finally {
+            FIND_ALL.record(started);
         }
-        return result;
     }
 
     /**
-     * Method that retrieves a guest by their email
+     * Method that retrieves a guest by their email, ignoring case
      * @param email
      * @return the Guest with the given email
      */
     @Override
     public Guest findByEmail(String email){
-        return findAll().stream()
-                .filter(i -> i.getEmail().equals(email))
-                .findFirst().orElse(null);
+        long started = System.nanoTime();
+        try {
+            Guest result = email == null ? null : currentIndex().byEmail.get(email.toLowerCase(Locale.ROOT));
+            return count(result);
+        } finally {
+            FIND_BY_EMAIL.record(started);
+        }
+    }
+
+    /**
+     * Method that retrieves a guest by their ID
+     * @param id
+     * @return the Guest with the given ID
+     */
+    @Override
+    public Guest findById(int id){
+        long started = System.nanoTime();
+        try {
+            return count(currentIndex().byId.get(id));
+        } finally {
+            FIND_BY_ID.record(started);
+        }
+    }
+
+    /**
+     * Method that returns the number of lookups that found a guest
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Method that returns the number of lookups that did not find a guest
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Method that returns the number of times the file has been read
+     * @return the reload count
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    /**
+     * Helper method that records a lookup as a hit or a miss
+     * @param guest
+     * @return the guest that was passed in
+     */
+    private Guest count(Guest guest) {
+        if (guest == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return guest;
+    }
+
+    /**
+     * Method that checks the file attributes against the ones the current index
+     * was built from and reloads the file if they no longer match
+     * @return the index that reflects the file on disk
+     */
+    private GuestIndex currentIndex() {
+        long lastModified;
+        long size;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            lastModified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        } catch (IOException ex) {
+            Metrics.counter("io_errors_swallowed_total", "source", "guest",
+                    "exception", ex.getClass().getSimpleName()).increment();
+            return GuestIndex.EMPTY; //no file means no guests
+        }
+
+        GuestIndex current = index;
+        if (current.matches(lastModified, size)) {
+            return current;
+        }
+
+        synchronized (this) {
+            //another thread may have reloaded while this one was waiting
+            if (!index.matches(lastModified, size)) {
+                index = new GuestIndex(readAll(), lastModified, size);
+                reloads.incrementAndGet();
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Method that reads each record of the given file and uses deserialize method
+     * to convert each record to a Guest object and add to the list of Guests
+     * @return the list of guests produced from the file
+     */
+    private List<Guest> readAll(){
+        //records with a different number of fields are skipped
+        return CsvReader.readAll(filePath, 6, this::deserialize);
     }
 
     /**
-     * Method that reads an array of strings and creates a Guest object
-     * with the elements assigned to each field
+     * Method that reads the fields of the current record and creates a Guest
+     * object with the values assigned to each field
      * @param fields
      * @return the Guest that was created from the fields
      */
-    private Guest deserialize(String[] fields) {
+    private Guest deserialize(CsvReader fields) {
         Guest result = new Guest();
-        result.setId(Integer.parseInt(fields[0]));
-        result.setFirstName(fields[1]);
-        result.setLastName(fields[2]);
-        result.setEmail(fields[3]);
-        result.setPhone(fields[4]);
-        result.setState(fields[5]);
+        result.setId(fields.getInt(0));
+        result.setFirstName(fields.getString(1));
+        result.setLastName(fields.getString(2));
+        result.setEmail(fields.getString(3));
+        result.setPhone(fields.getString(4));
+        result.setState(fields.getString(5));
         return result;
     }
+
+    private static Timer timer(String method) {
+        return Metrics.timer("repository_call_seconds", "repository", "guest", "method", method);
+    }
+
+    /**
+     * Immutable snapshot of the guest file with indexes on ID and email
+     */
+    private static class GuestIndex {
+        private static final GuestIndex EMPTY = new GuestIndex(List.of(), -1, -1);
+
+        private final List<Guest> guests;
+        private final IntMap<Guest> byId;
+        private final Map<String, Guest> byEmail;
+        private final long lastModified;
+        private final long size;
+
+        private GuestIndex(List<Guest> guests, long lastModified, long size) {
+            this.guests = Collections.unmodifiableList(guests);
+            this.byId = new IntMap<>(guests.size());
+            this.byEmail = new HashMap<>(guests.size() * 2);
+            this.lastModified = lastModified;
+            this.size = size;
+
+            //keeping the first guest for a key to match the previous find first behaviour
+            for (Guest guest : guests) {
+                byId.putIfAbsent(guest.getId(), guest);
+                if (guest.getEmail() != null) {
+                    byEmail.putIfAbsent(guest.getEmail().toLowerCase(Locale.ROOT), guest);
+                }
+            }
+        }
+
+        private boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+    }
 }
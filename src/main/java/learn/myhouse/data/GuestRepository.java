@@ -8,4 +8,6 @@ public interface GuestRepository {
     List<Guest> findAll();
 
     Guest findByEmail(String email);
+
+    Guest findById(int id);
 }
@@ -1,86 +1,186 @@
 package learn.myhouse.data;
 
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.metrics.Timer;
 import learn.myhouse.model.Host;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Repository;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
-@Repository
 public class HostFileRepository implements HostRepository {
+    private static final Timer FIND_ALL = timer("findAll");
+    private static final Timer FIND_BY_EMAIL = timer("findByEmail");
+    private static final Timer FIND_BY_ID = timer("findById");
+
     private final String filePath;
 
+    //hosts loaded from the file along with the email and id indexes, replaced when the file changes
+    private volatile HostIndex index = HostIndex.EMPTY;
+
     /**
      * constructor that accepts and sets the file path of the repository
      * @param filePath
      */
-    public HostFileRepository(@Value("./data/hosts.csv") String filePath) {
+    public HostFileRepository(String filePath) {
         this.filePath = filePath;
     }
 
     /**
-     * Method that reads each line of the given file and uses deserialize method
-     * to convert each line to a Host object and add to the list of Hosts
+     * Method that returns the hosts loaded from the file. The file is only
+     * read again when its last modified time or size has changed
      * @return the list of hosts produced from the file
      */
     @Override
     public List<Host> findAll(){
-        ArrayList<Host> result = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        long started = System.nanoTime();
+        try {
+            return new ArrayList<>(currentIndex().hosts);
+        } finally {
+            FIND_ALL.record(started);
+        }
+    }
 
-            reader.readLine(); // read header
+    /**
+     * Method that retrieves a host by their email, ignoring case
+     * @param email
+     * @return the host with the given email
+     */
+    @Override
+    public Host findByEmail(String email){
+        if (email == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            return currentIndex().byEmail.get(email.toLowerCase(Locale.ROOT));
+        } finally {
+            FIND_BY_EMAIL.record(started);
+        }
+    }
 
-            //splitting each line into an array of strings with each element representing a field
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) { //reading each line
+    /**
+     * Method that retrieves a host by their ID
+     * @param id
+     * @return the host with the given ID
+     */
+    @Override
+    public Host findById(String id){
+        if (id == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            return currentIndex().byId.get(id);
+        } finally {
+            FIND_BY_ID.record(started);
+        }
+    }
 
-                String[] fields = line.split(",", -1);
-                if (fields.length == 10) {
-                    //use deserialize to make a Host object using the fields within the array
-                    result.add(deserialize(fields));
-                }
-            }
+    /**
+     * Method that checks the file attributes against the ones the current index
+     * was built from and reloads the file if they no longer match
+     * @return the index that reflects the file on disk
+     */
+    private HostIndex currentIndex() {
+        long lastModified;
+        long size;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            lastModified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
         } catch (IOException ex) {
+            Metrics.counter("io_errors_swallowed_total", "source", "host",
+                    "exception", ex.getClass().getSimpleName()).increment();
+            return HostIndex.EMPTY; //no file means no hosts
+        }
 
+        HostIndex current = index;
+        if (current.matches(lastModified, size)) {
+            return current;
+        }
+
+        synchronized (this) {
+            //another thread may have reloaded while this one was waiting
+            if (!index.matches(lastModified, size)) {
+                index = new HostIndex(readAll(), lastModified, size);
+            }
+            return index;
         }
-        return result;
     }
 
     /**
-     * Method that retrieves a host by their email
-     * @param email
-     * @return the host with the given email
+     * Method that reads each record of the given file and uses deserialize method
+     * to convert each record to a Host object and add to the list of Hosts
+     * @return the list of hosts produced from the file
      */
-    @Override
-    public Host findByEmail(String email){
-        return findAll().stream()
-                .filter(i -> i.getEmail().equals(email))
-                .findFirst().orElse(null);
+    private List<Host> readAll(){
+        //records with a different number of fields are skipped
+        return CsvReader.readAll(filePath, 10, this::deserialize);
     }
 
     /**
-     * Method that reads an array of strings and creates a Host object
-     * with the elements assigned to each field
+     * Method that reads the fields of the current record and creates a Host
+     * object with the values assigned to each field
      * @param fields
      * @return the Host that was created from the fields
      */
-    private Host deserialize(String[] fields) {
+    private Host deserialize(CsvReader fields) {
         Host result = new Host();
-        result.setId(fields[0]);
-        result.setLastName(fields[1]);
-        result.setEmail(fields[2]);
-        result.setPhone(fields[3]);
-        result.setAddress(fields[4]);
-        result.setCity(fields[5]);
-        result.setState(fields[6]);
-        result.setPostCode(fields[7]);
-        result.setStandardRate(new BigDecimal(fields[8]));
-        result.setWeekendRate(new BigDecimal(fields[9]));
+        result.setId(fields.getString(0));
+        result.setLastName(fields.getString(1));
+        result.setEmail(fields.getString(2));
+        result.setPhone(fields.getString(3));
+        result.setAddress(fields.getString(4));
+        result.setCity(fields.getString(5));
+        result.setState(fields.getString(6));
+        result.setPostCode(fields.getString(7));
+        result.setStandardRate(fields.getBigDecimal(8));
+        result.setWeekendRate(fields.getBigDecimal(9));
         return result;
     }
 
+    private static Timer timer(String method) {
+        return Metrics.timer("repository_call_seconds", "repository", "host", "method", method);
+    }
+
+    /**
+     * Immutable snapshot of the host file with hash indexes on email and ID
+     */
+    private static class HostIndex {
+        private static final HostIndex EMPTY = new HostIndex(List.of(), -1, -1);
+
+        private final List<Host> hosts;
+        private final Map<String, Host> byEmail;
+        private final Map<String, Host> byId;
+        private final long lastModified;
+        private final long size;
+
+        private HostIndex(List<Host> hosts, long lastModified, long size) {
+            this.hosts = Collections.unmodifiableList(hosts);
+            this.byEmail = new HashMap<>(hosts.size() * 2);
+            this.byId = new HashMap<>(hosts.size() * 2);
+            this.lastModified = lastModified;
+            this.size = size;
+
+            //keeping the first host for a key to match the previous find first behaviour
+            for (Host host : hosts) {
+                if (host.getEmail() != null) {
+                    byEmail.putIfAbsent(host.getEmail().toLowerCase(Locale.ROOT), host);
+                }
+                byId.putIfAbsent(host.getId(), host);
+            }
+        }
+
+        private boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+    }
 }
@@ -8,4 +8,6 @@ public interface HostRepository {
     List<Host> findAll();
 
     Host findByEmail(String email);
+
+    Host findById(String id);
 }
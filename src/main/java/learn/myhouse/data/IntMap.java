@@ -0,0 +1,100 @@
+package learn.myhouse.data;
+
+/**
+ * Open addressing hash map keyed by primitive ints so lookups do not box
+ * the key. Not thread safe, callers publish it after it has been filled.
+ * @param <V> the type of the values
+ */
+class IntMap<V> {
+    private int[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * constructor that sizes the table to hold the expected number of
+     * entries without resizing
+     * @param expectedSize
+     */
+    IntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+    }
+
+    /**
+     * Method that retrieves the value stored under a key
+     * @param key
+     * @return the value, or null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method that stores a value under a key unless the key is already present
+     * @param key
+     * @param value
+     * @return whether the value was stored
+     */
+    boolean putIfAbsent(int key, V value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return false;
+            }
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Method that doubles the table and reinserts every entry
+     */
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                putIfAbsent(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Method that spreads sequential ids across the table
+     * @param key
+     * @return the scrambled hash
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,221 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Class that makes each reservation change durable with one append to a
+ * journal instead of a rewrite of the host's file. A change is only
+ * applied once its journal entry has been written. Changes are kept in a
+ * write-behind buffer and written to the host files at a checkpoint, once
+ * the journal holds enough entries or on close, after which the journal is
+ * emptied. Entries left in the journal by a crash are replayed into the
+ * host files when the repository is created
+ */
+public class JournaledReservationRepository implements ReservationRepository, AutoCloseable {
+    private final ReservationFileRepository files;
+    private final ReservationJournal journal;
+    private final WriteBehindReservationRepository buffer;
+    private final int checkpointEntries;
+    private final int recovered;
+
+    //a checkpoint waits for changes in progress so none is dropped from the journal unwritten
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    //keeps the journal in the same order as the buffer for each host
+    private final LockStripes hostLocks = new LockStripes();
+
+    /**
+     * constructor that replays the journal left by a previous run and
+     * opens it for new changes
+     * @param files
+     * @param journalPath
+     * @param fsyncPolicy how journal appends are forced to the storage device
+     * @param checkpointEntries number of journal entries that triggers a checkpoint
+     * @throws DataException
+     */
+    public JournaledReservationRepository(ReservationFileRepository files, String journalPath,
+                                          FsyncPolicy fsyncPolicy, int checkpointEntries) throws DataException {
+        this.files = files;
+        this.journal = new ReservationJournal(journalPath, fsyncPolicy);
+        this.checkpointEntries = Math.max(1, checkpointEntries);
+        this.recovered = replay(journal.readAll());
+        journal.reset();
+        //the journal makes changes durable, so the buffer is only written at checkpoints
+        this.buffer = new WriteBehindReservationRepository(files, Integer.MAX_VALUE, 0);
+    }
+
+    @Override
+    public List<Reservation> findByHostId(String hostId) {
+        return buffer.findByHostId(hostId);
+    }
+
+    /**
+     * Method that adds a Reservation and appends it to the journal
+     * @param reservation
+     * @return the Reservation object that was added
+     * @throws DataException
+     */
+    @Override
+    public Reservation add(Reservation reservation) throws DataException {
+        if (reservation == null) {
+            return null;
+        }
+
+        String hostId = reservation.getHost().getId();
+        Lock lock = lockHost(hostId);
+        try {
+            //journaling first, so a failed append leaves nothing in the buffer for a checkpoint to write
+            reservation.setId(buffer.nextId(hostId));
+            journal.put(reservation);
+            buffer.add(reservation);
+        } finally {
+            unlockHost(lock);
+        }
+        checkpointIfFull();
+        return reservation;
+    }
+
+    /**
+     * Method that updates a Reservation and appends it to the journal
+     * @param reservation
+     * @return whether the update was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean update(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = lockHost(hostId);
+        try {
+            if (!buffer.contains(hostId, reservation.getId())) {
+                return false;
+            }
+            journal.put(reservation);
+            buffer.update(reservation);
+        } finally {
+            unlockHost(lock);
+        }
+        checkpointIfFull();
+        return true;
+    }
+
+    /**
+     * Method that deletes a Reservation and appends the deletion to the journal
+     * @param id
+     * @param hostID
+     * @return whether the deletion was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean deleteById(int id, String hostID) throws DataException {
+        Lock lock = lockHost(hostID);
+        try {
+            if (!buffer.contains(hostID, id)) {
+                return false;
+            }
+            journal.delete(id, hostID);
+            buffer.deleteById(id, hostID);
+        } finally {
+            unlockHost(lock);
+        }
+        checkpointIfFull();
+        return true;
+    }
+
+    /**
+     * Method that writes the buffered changes to the host files and empties
+     * the journal
+     * @throws DataException
+     */
+    public void checkpoint() throws DataException {
+        checkpointLock.writeLock().lock();
+        try {
+            buffer.flush();
+            journal.reset();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method that checkpoints and closes the journal
+     * @throws DataException
+     */
+    @Override
+    public void close() throws DataException {
+        try {
+            checkpoint();
+            buffer.close();
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Method that returns the number of journal entries replayed when the
+     * repository was created
+     * @return the recovered entry count
+     */
+    public int getRecoveredCount() {
+        return recovered;
+    }
+
+    public ReservationJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Helper method that applies journal entries to the host files, writing
+     * each host once. Entries hold the state a change left behind, so
+     * entries that already reached a host file before a crash do no harm
+     * @param entries
+     * @return the number of entries applied
+     * @throws DataException
+     */
+    private int replay(List<ReservationJournal.Entry> entries) throws DataException {
+        Map<String, LinkedHashMap<Integer, Reservation>> hosts = new LinkedHashMap<>();
+        for (ReservationJournal.Entry entry : entries) {
+            LinkedHashMap<Integer, Reservation> reservations = hosts.computeIfAbsent(entry.getHostId(), hostId -> {
+                LinkedHashMap<Integer, Reservation> stored = new LinkedHashMap<>();
+                for (Reservation reservation : files.findByHostId(hostId)) {
+                    stored.put(reservation.getId(), reservation);
+                }
+                return stored;
+            });
+
+            if (entry.isDelete()) {
+                reservations.remove(entry.getId());
+            } else {
+                reservations.put(entry.getId(), entry.getReservation());
+            }
+        }
+
+        for (Map.Entry<String, LinkedHashMap<Integer, Reservation>> host : hosts.entrySet()) {
+            files.replaceAll(host.getKey(), new ArrayList<>(host.getValue().values()));
+        }
+        return entries.size();
+    }
+
+    private void checkpointIfFull() throws DataException {
+        if (journal.getEntryCount() >= checkpointEntries) {
+            checkpoint();
+        }
+    }
+
+    private Lock lockHost(String hostId) {
+        checkpointLock.readLock().lock();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        return lock;
+    }
+
+    private void unlockHost(Lock lock) {
+        lock.unlock();
+        checkpointLock.readLock().unlock();
+    }
+}
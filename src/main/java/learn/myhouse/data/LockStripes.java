@@ -0,0 +1,72 @@
+package learn.myhouse.data;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed set of read/write locks shared out by the hash of a key, so work on
+ * the same key is serialized while work on different keys usually lands on
+ * different locks and runs in parallel. Keys that share a stripe simply wait
+ * on each other, which is safe since a stripe is never held across keys
+ */
+public class LockStripes {
+    private final ReentrantReadWriteLock[] stripes;
+
+    /**
+     * constructor that sizes the stripes for the number of processors
+     */
+    public LockStripes() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * constructor that creates at least the given number of stripes,
+     * rounded up to a power of two
+     * @param count
+     */
+    public LockStripes(int count) {
+        int size = Integer.highestOneBit(Math.max(16, count) - 1) << 1;
+        stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Method that returns the exclusive lock for a key
+     * @param key
+     * @return the write lock of the key's stripe
+     */
+    public Lock writeLock(String key) {
+        return stripe(key).writeLock();
+    }
+
+    /**
+     * Method that returns the shared lock for a key
+     * @param key
+     * @return the read lock of the key's stripe
+     */
+    public Lock readLock(String key) {
+        return stripe(key).readLock();
+    }
+
+    /**
+     * Method that returns the number of stripes
+     * @return the stripe count
+     */
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Helper method that picks the stripe for a key, spreading the high bits
+     * of the hash since String hashes of similar keys differ mostly in low bits
+     * @param key
+     * @return the stripe for the key
+     */
+    private ReentrantReadWriteLock stripe(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,13 @@
+package learn.myhouse.data;
+
+/**
+ * How a file repository reads its files.
+ */
+public enum ReadMode {
+    //read through a channel into a reusable heap buffer
+    CHANNEL,
+    //map the whole file into memory and parse it in place. On Windows a
+    //mapped file cannot be replaced until the mapping is collected, so this
+    //suits read heavy work such as reporting sweeps
+    MAPPED
+}
@@ -0,0 +1,493 @@
+package learn.myhouse.data;
+
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Reservation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class that stores each host's reservations as fixed width binary records
+ * in a file named after the host ID. A file starts with a header and the
+ * record for a reservation sits at slot ID - 1, so a reservation is read or
+ * replaced without looking at any other record. Deleted reservations leave
+ * an empty slot behind, and empty slots at the end of the file are cut off
+ * so the next ID is still the highest ID plus one
+ *
+ * Record layout, big endian:
+ *   int id (0 for an empty slot), int start epoch day, int end epoch day,
+ *   int guest ID, long total in cents (Long.MIN_VALUE when there is no total)
+ */
+public class ReservationBinaryRepository implements ReservationRepository {
+    static final int MAGIC = 0x44574D48; //"DWMH"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 24;
+    private static final String EXTENSION = ".dat";
+
+    private final String directory;
+    private final LockStripes hostLocks = new LockStripes();
+
+    /**
+     * constructor that accepts and sets the directory path of the repository
+     * @param directory
+     */
+    public ReservationBinaryRepository(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Method that reads a host's file with a single bulk read and decodes
+     * every record that is in use
+     * @param hostId
+     * @return the list of reservations in ID order
+     */
+    @Override
+    public List<Reservation> findByHostId(String hostId) {
+        List<CompactReservation> records = findCompactByHostId(hostId);
+        ArrayList<Reservation> result = new ArrayList<>(records.size());
+        for (CompactReservation record : records) {
+            result.add(record.toReservation());
+        }
+        return result;
+    }
+
+    /**
+     * Method that reads a host's records without creating Reservation objects,
+     * since each record already holds the compact fields
+     * @param hostId
+     * @return the reservations in the host's file
+     * @throws UncheckedIOException if the file cannot be read or is not a reservation file
+     */
+    @Override
+    public List<CompactReservation> findCompactByHostId(String hostId) {
+        Lock lock = hostLocks.readLock(hostId);
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(getFilePath(hostId), StandardOpenOption.READ)) {
+            ByteBuffer buffer = readFully(channel);
+            checkHeader(buffer);
+
+            ArrayList<CompactReservation> result = new ArrayList<>(buffer.remaining() / RECORD_SIZE);
+            //a record cut short by a crash is ignored
+            while (buffer.remaining() >= RECORD_SIZE) {
+                CompactReservation record = decodeCompact(buffer, hostId);
+                if (record != null) {
+                    result.add(record);
+                }
+            }
+            return result;
+        } catch (NoSuchFileException ex) {
+            return new ArrayList<>(); //no file means no reservations
+        } catch (IOException ex) {
+            //a damaged file is not read as a host without reservations
+            Metrics.counter("data_exceptions_total", "source", "binary").increment();
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that adds a Reservation to the end of the host's file, giving
+     * it the ID of the slot it is written to
+     * @param reservation
+     * @return the Reservation object that was added
+     * @throws DataException
+     */
+    @Override
+    public Reservation add(Reservation reservation) throws DataException {
+        if (reservation == null) {
+            return null;
+        }
+
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try (FileChannel channel = openForWrite(hostId)) {
+            //any partial record left at the end is overwritten
+            int slots = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+            reservation.setId(slots + 1);
+            write(channel, slots, encode(reservation));
+            return reservation;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that replaces the record of an existing Reservation in place
+     * @param reservation
+     * @return whether the update was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean update(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try (FileChannel channel = openForWrite(hostId)) {
+            if (!inUse(channel, reservation.getId())) {
+                return false;
+            }
+            write(channel, reservation.getId() - 1, encode(reservation));
+            return true;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that empties the slot of an existing Reservation
+     * @param id
+     * @param hostID
+     * @return whether the deletion was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean deleteById(int id, String hostID) throws DataException {
+        Lock lock = hostLocks.writeLock(hostID);
+        lock.lock();
+        try (FileChannel channel = openForWrite(hostID)) {
+            if (!inUse(channel, id)) {
+                return false;
+            }
+            write(channel, id - 1, ByteBuffer.allocate(RECORD_SIZE));
+            trimEmptySlots(channel);
+            return true;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that replaces a host's reservations, keeping their IDs. Used
+     * to convert from another format
+     * @param hostId
+     * @param reservations
+     * @throws DataException
+     */
+    public void replaceAll(String hostId, List<Reservation> reservations) throws DataException {
+        Set<Integer> ids = new HashSet<>();
+        int slots = 0;
+        for (Reservation reservation : reservations) {
+            if (reservation.getId() <= 0) {
+                throw new DataException("reservation ID must be positive: " + reservation.getId());
+            }
+            if (!ids.add(reservation.getId())) {
+                throw new DataException("reservation ID is used more than once: " + reservation.getId());
+            }
+            slots = Math.max(slots, reservation.getId());
+        }
+
+        //each ID has its own slot, so the highest ID sets the file's length
+        long length = position(slots);
+        if (length > Integer.MAX_VALUE) {
+            throw new DataException("reservation ID is too large for a binary host file: " + slots);
+        }
+        ByteBuffer contents = ByteBuffer.allocate((int) length);
+        putHeader(contents);
+        for (Reservation reservation : reservations) {
+            contents.position((int) position(reservation.getId() - 1));
+            contents.put(encode(reservation));
+        }
+        contents.clear();
+
+        //writing a temporary file and moving it over the host's file, so a crash leaves the old or new file
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        Path temp = null;
+        try {
+            temp = ReservationFileRepository.createTempFile(Paths.get(directory), hostId, getFilePath(hostId));
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(true);
+            }
+            move(temp, getFilePath(hostId));
+            temp = null;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            deleteIfExists(temp);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that converts every host file in a CSV reservation directory
+     * to the binary format
+     * @param csvDirectory
+     * @return the number of reservations converted
+     * @throws DataException
+     */
+    public int importCsv(String csvDirectory) throws DataException {
+        ReservationFileRepository source = new ReservationFileRepository(csvDirectory);
+        int count = 0;
+        for (String hostId : listHostIds(csvDirectory, ".csv")) {
+            List<Reservation> reservations = source.findByHostId(hostId);
+            replaceAll(hostId, reservations);
+            count += reservations.size();
+        }
+        return count;
+    }
+
+    /**
+     * Method that writes every host file of this repository to a directory
+     * in the CSV format
+     * @param csvDirectory
+     * @return the number of reservations converted
+     * @throws DataException
+     */
+    public int exportCsv(String csvDirectory) throws DataException {
+        ReservationFileRepository target = new ReservationFileRepository(csvDirectory);
+        int count = 0;
+        for (String hostId : listHostIds(directory, EXTENSION)) {
+            List<Reservation> reservations = findByHostId(hostId);
+            target.replaceAll(hostId, reservations);
+            count += reservations.size();
+        }
+        return count;
+    }
+
+    /**
+     * Helper method that lists the host IDs of the files in a directory
+     * with the given extension
+     * @param directory
+     * @param extension
+     * @return the host IDs
+     * @throws DataException
+     */
+    private static List<String> listHostIds(String directory, String extension) throws DataException {
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(extension))
+                    .map(name -> name.substring(0, name.length() - extension.length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    @Override
+    public BasicFileAttributes getFileAttributes(String hostId) {
+        try {
+            return Files.readAttributes(getFilePath(hostId), BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return null; //no file means no reservations
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteIfExists(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            //a leftover temporary file is never read as a host file, so only counted
+            Metrics.counter("io_errors_swallowed_total", "source", "binary",
+                    "exception", ex.getClass().getSimpleName()).increment();
+        }
+    }
+
+    private Path getFilePath(String hostId) {
+        return Paths.get(directory, hostId + EXTENSION);
+    }
+
+    /**
+     * Helper method that opens a host's file for writing, writing the
+     * header first if the file is new
+     * @param hostId
+     * @return the open channel
+     * @throws IOException
+     */
+    private FileChannel openForWrite(String hostId) throws IOException {
+        FileChannel channel = FileChannel.open(getFilePath(hostId),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                putHeader(header);
+                header.flip();
+                writeAt(channel, header, 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readAt(channel, header, 0);
+                header.flip();
+                checkHeader(header);
+            }
+            return channel;
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Helper method that checks whether a slot holds a reservation
+     * @param channel
+     * @param id
+     * @return whether the reservation with the ID exists
+     * @throws IOException
+     */
+    private static boolean inUse(FileChannel channel, int id) throws IOException {
+        if (id <= 0 || position(id - 1) + RECORD_SIZE > channel.size()) {
+            return false;
+        }
+        ByteBuffer stored = ByteBuffer.allocate(Integer.BYTES);
+        readAt(channel, stored, position(id - 1));
+        return stored.getInt(0) == id;
+    }
+
+    /**
+     * Helper method that cuts empty slots off the end of a file so the
+     * next reservation added takes the lowest free ID at the end
+     * @param channel
+     * @throws IOException
+     */
+    private static void trimEmptySlots(FileChannel channel) throws IOException {
+        int slots = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        ByteBuffer id = ByteBuffer.allocate(Integer.BYTES);
+        while (slots > 0) {
+            id.clear();
+            readAt(channel, id, position(slots - 1));
+            if (id.getInt(0) != 0) {
+                break;
+            }
+            slots--;
+        }
+        channel.truncate(position(slots));
+    }
+
+    private static void write(FileChannel channel, int slot, ByteBuffer record) throws IOException {
+        record.clear();
+        writeAt(channel, record, position(slot));
+    }
+
+    private static long position(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+
+    private static void writeAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Helper method that reads a whole file into a buffer
+     * @param channel
+     * @return the file contents, ready to be read
+     * @throws IOException
+     */
+    private static ByteBuffer readFully(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        readAt(channel, buffer, 0);
+        return buffer.flip();
+    }
+
+    private static void putHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+    }
+
+    /**
+     * Helper method that reads the header and checks that the file is in
+     * a format this class can read
+     * @param buffer
+     * @throws IOException
+     */
+    private static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE
+                || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION
+                || buffer.getInt() != RECORD_SIZE) {
+            throw new IOException("not a reservation file");
+        }
+        buffer.getInt(); //reserved
+    }
+
+    /**
+     * Method that converts a Reservation to its binary record
+     * @param reservation
+     * @return the record, positioned at its start
+     */
+    static ByteBuffer encode(Reservation reservation) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(reservation.getId());
+        record.putInt((int) reservation.getStartDate().toEpochDay());
+        record.putInt((int) reservation.getEndDate().toEpochDay());
+        record.putInt(reservation.getGuest().getId());
+        record.putLong(CompactReservation.toCents(reservation.getTotal()));
+        return record.flip();
+    }
+
+    /**
+     * Method that converts the next binary record to a Reservation
+     * @param buffer
+     * @param hostId
+     * @return the Reservation, or null if the slot is empty
+     */
+    static Reservation decode(ByteBuffer buffer, String hostId) {
+        CompactReservation record = decodeCompact(buffer, hostId);
+        return record == null ? null : record.toReservation();
+    }
+
+    /**
+     * Method that converts the next binary record to a CompactReservation
+     * @param buffer
+     * @param hostId
+     * @return the record, or null if the slot is empty
+     */
+    static CompactReservation decodeCompact(ByteBuffer buffer, String hostId) {
+        int id = buffer.getInt();
+        if (id == 0) {
+            buffer.position(buffer.position() + RECORD_SIZE - Integer.BYTES);
+            return null;
+        }
+        return new CompactReservation(id, buffer.getInt(), buffer.getInt(), buffer.getInt(), hostId, buffer.getLong());
+    }
+}
@@ -0,0 +1,19 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+
+import java.util.List;
+
+/**
+ * Interface for anything that keeps a copy of reservation data and has to
+ * hear about changes once they are written to a host's file.
+ */
+public interface ReservationChangeListener {
+    //a reservation was added or replaced
+    void reservationSaved(Reservation reservation);
+
+    void reservationDeleted(int id, String hostId);
+
+    //every reservation of a host was rewritten at once
+    void hostReplaced(String hostId, List<Reservation> reservations);
+}
@@ -1,30 +1,97 @@
 package learn.myhouse.data;
 
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.metrics.Timer;
+import learn.myhouse.model.CompactReservation;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
 import learn.myhouse.model.Reservation;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Repository;
 
 import java.io.*;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.Lock;
 
-@Repository
 public class ReservationFileRepository implements ReservationRepository {
     //header present since file will be written to
     private static final String HEADER = "id,start_date,end_date,guest_id,total";
+    //number of writes that the BATCHED policy lets build up before forcing them
+    private static final int SYNC_BATCH_SIZE = 32;
+
+    private static final Timer FIND_BY_HOST_ID = timer("findByHostId");
+    private static final Timer FIND_COMPACT_BY_HOST_ID = timer("findCompactByHostId");
+    private static final Timer ADD = timer("add");
+    private static final Timer ADD_ALL = timer("addAll");
+    private static final Timer UPDATE = timer("update");
+    private static final Timer DELETE_BY_ID = timer("deleteById");
     private final String directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final ReadMode readMode;
+
+    //next reservation ID for each host, valid while the file still has the recorded length
+    private final Map<String, NextId> nextIds = new ConcurrentHashMap<>();
+
+    //files written since the last sync under the BATCHED policy
+    private final Set<Path> unsynced = new LinkedHashSet<>();
+    private final WriteStatistics writeStatistics = new WriteStatistics();
+
+    //each host's file is read and rewritten under its own stripe
+    private final LockStripes hostLocks = new LockStripes();
+
+    //told about every change once it is in the file
+    private final List<ReservationChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      *constructor that accepts and sets the directory path of the repository
      * @param directory
      */
-    public ReservationFileRepository(@Value("./data/reservations") String directory) {
+    public ReservationFileRepository(String directory) {
+        this(directory, FsyncPolicy.NONE);
+    }
+
+    /**
+     * constructor that accepts the directory path of the repository and how
+     * written files are forced to the storage device
+     * @param directory
+     * @param fsyncPolicy
+     */
+    public ReservationFileRepository(String directory, FsyncPolicy fsyncPolicy) {
+        this(directory, fsyncPolicy, ReadMode.CHANNEL);
+    }
+
+    /**
+     * constructor that accepts the directory path of the repository, how
+     * written files are forced to the storage device and how files are read
+     * @param directory
+     * @param fsyncPolicy
+     * @param readMode
+     */
+    public ReservationFileRepository(String directory, FsyncPolicy fsyncPolicy, ReadMode readMode) {
         this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.readMode = readMode;
     }
 
     /**
@@ -35,30 +102,54 @@ public class ReservationFileRepository implements ReservationRepository {
      */
     @Override
     public List<Reservation> findByHostId(String hostId) {
-        ArrayList<Reservation> result = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(getFilePath(hostId)))) {
-
-            reader.readLine(); // read header
-
-            //reading each line with data and adding each Reservation object to the list
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) { //reading each line
-
-                String[] fields = line.split(",", -1);
-                if (fields.length == 5) {
-                    //use deserialize to make a Reservation object using the fields within the array
-                    result.add(deserialize(fields, hostId));
-                }
-            }
-        } catch (IOException ex) {
+        //waiting out an append in progress so a half written line is never read
+        long started = System.nanoTime();
+        Lock lock = hostLocks.readLock(hostId);
+        lock.lock();
+        try {
+            return readAll(hostId);
+        } finally {
+            lock.unlock();
+            FIND_BY_HOST_ID.record(started);
+        }
+    }
 
+    /**
+     * Method that reads a host's file straight into compact reservations,
+     * without the dates, totals and stub guest and host of a Reservation
+     * @param hostId
+     * @return the reservations in the host's file
+     */
+    @Override
+    public List<CompactReservation> findCompactByHostId(String hostId) {
+        long started = System.nanoTime();
+        Lock lock = hostLocks.readLock(hostId);
+        lock.lock();
+        try {
+            return CsvReader.readAll(getFilePath(hostId), readMode, 5, fields -> new CompactReservation(
+                    fields.getInt(0), fields.getEpochDay(1), fields.getEpochDay(2), fields.getInt(3),
+                    hostId, fields.getCents(4)));
+        } finally {
+            lock.unlock();
+            FIND_COMPACT_BY_HOST_ID.record(started);
         }
-        return result;
     }
 
     /**
-     * Method that adds a Reservation object to the current list of
-     * reservations. Writes the updated list of reservations in
-     * the file dedicated to the current host
+     * Helper method that reads every reservation in a host's file, the
+     * caller holds a lock for the host
+     * @param hostId
+     * @return the list of reservations produced from the file
+     */
+    private List<Reservation> readAll(String hostId) {
+        //reading each record with data and adding each Reservation object to the list
+        return CsvReader.readAll(getFilePath(hostId), readMode, 5, fields -> deserialize(fields, hostId));
+    }
+
+    /**
+     * Method that adds a Reservation object to the end of the file dedicated
+     * to the current host. The next ID is kept in memory so only a new host
+     * file, or one changed outside the repository, has to be read first
      * @param reservation
      * @return the Reservation object that was added
      * @throws DataException
@@ -69,18 +160,69 @@ public class ReservationFileRepository implements ReservationRepository {
             return null;
         }
 
-        List<Reservation> all = findByHostId(reservation.getHost().getId());
+        String hostId = reservation.getHost().getId();
+        Path path = Paths.get(getFilePath(hostId));
 
-        //finding the highest ID plus one
-        int nextID = all.stream().
-                mapToInt(Reservation::getId).
-                max().
-                orElse(0) + 1;
+        long started = System.nanoTime();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            int nextID = nextId(hostId, path);
+
+            reservation.setId(nextID); //setting the ID before adding
+            long length = append(path, serialize(reservation)); //appending a single line to the host's file
+            nextIds.put(hostId, new NextId(nextID + 1, length));
+            for (ReservationChangeListener listener : listeners) {
+                listener.reservationSaved(reservation);
+            }
+            return reservation;
+        } finally {
+            lock.unlock();
+            ADD.record(started);
+        }
+    }
+
+    /**
+     * Method that adds several Reservations for one host with a single
+     * append to the host's file, giving them consecutive IDs
+     * @param hostId
+     * @param reservations
+     * @return the Reservations that were added
+     * @throws DataException
+     */
+    @Override
+    public List<Reservation> addAll(String hostId, List<Reservation> reservations) throws DataException {
+        if (reservations.isEmpty()) {
+            return reservations;
+        }
+        Path path = Paths.get(getFilePath(hostId));
+
+        long started = System.nanoTime();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            int nextID = nextId(hostId, path);
+            StringBuilder lines = new StringBuilder();
+            for (Reservation reservation : reservations) {
+                reservation.setId(nextID++);
+                if (lines.length() > 0) {
+                    lines.append(System.lineSeparator());
+                }
+                lines.append(serialize(reservation));
+            }
 
-        reservation.setId(nextID); //setting the ID before adding
-        all.add(reservation); //adding to current list of reservations
-        writeAll(all, reservation.getHost().getId()); //overwriting the file with current list of reservations
-        return reservation;
+            long length = append(path, lines.toString());
+            nextIds.put(hostId, new NextId(nextID, length));
+            for (Reservation reservation : reservations) {
+                for (ReservationChangeListener listener : listeners) {
+                    listener.reservationSaved(reservation);
+                }
+            }
+            return reservations;
+        } finally {
+            lock.unlock();
+            ADD_ALL.record(started);
+        }
     }
 
     /**
@@ -92,17 +234,29 @@ public class ReservationFileRepository implements ReservationRepository {
      */
     @Override
     public boolean update(Reservation reservation) throws DataException {
-        List<Reservation> all = findByHostId(reservation.getHost().getId());
-
-        //replacing reservation if ID is found
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getId() == reservation.getId()) {
-                all.set(i, reservation);
-                writeAll(all, reservation.getHost().getId());
-                return true;
+        String hostId = reservation.getHost().getId();
+        long started = System.nanoTime();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            List<Reservation> all = readAll(hostId);
+
+            //replacing reservation if ID is found
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getId() == reservation.getId()) {
+                    all.set(i, reservation);
+                    writeAll(all, hostId);
+                    for (ReservationChangeListener listener : listeners) {
+                        listener.reservationSaved(reservation);
+                    }
+                    return true;
+                }
             }
+            return false;
+        } finally {
+            lock.unlock();
+            UPDATE.record(started);
         }
-        return false;
     }
 
     /**
@@ -115,18 +269,111 @@ public class ReservationFileRepository implements ReservationRepository {
      */
     @Override
     public boolean deleteById(int id, String hostID) throws DataException {
+        long started = System.nanoTime();
+        Lock lock = hostLocks.writeLock(hostID);
+        lock.lock();
+        try {
+            List<Reservation> all = readAll(hostID);
+
+            //removing reservation if ID is founded in the hosts list of reservation
+            for(int i=0;i<all.size();i++){
+                if(all.get(i).getId() == id){ //checking if panel with ID exists
+                    all.remove(i);
+                    writeAll(all,hostID);
+                    for (ReservationChangeListener listener : listeners) {
+                        listener.reservationDeleted(id, hostID);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+            DELETE_BY_ID.record(started);
+        }
+    }
+
+    /**
+     * Method that returns the ID of every host with a reservation file.
+     * Temporary files left by an interrupted rewrite are not included
+     * @return the host IDs
+     */
+    public List<String> findHostIds() {
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".csv"))
+                    .map(name -> name.substring(0, name.length() - ".csv".length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            Metrics.counter("io_errors_swallowed_total", "source", "reservation",
+                    "exception", ex.getClass().getSimpleName()).increment();
+            return List.of(); //no directory means no hosts
+        }
+    }
 
-        List<Reservation> all = findByHostId(hostID);
+    /**
+     * Method that returns the size and last modified time of a host's file,
+     * so callers keeping something built from the file can tell when it changes
+     * @param hostId
+     * @return the file's attributes, or null if the host has no file
+     */
+    @Override
+    public BasicFileAttributes getFileAttributes(String hostId) {
+        try {
+            return Files.readAttributes(Paths.get(getFilePath(hostId)), BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return null; //no file means no reservations
+        }
+    }
 
-        //removing reservation if ID is founded in the hosts list of reservation
-        for(int i=0;i<all.size();i++){
-            if(all.get(i).getId() == id){ //checking if panel with ID exists
-                all.remove(i);
-                writeAll(all,hostID);
-                return true;
+    /**
+     * Method that reads every host file at once, splitting the hosts among
+     * the threads of a fork join pool so the load scales with cores rather
+     * than the number of files
+     * @param parallelism number of threads that read files
+     * @return the reservations of every host with the load statistics
+     */
+    public ReservationSnapshot loadAll(int parallelism) {
+        long started = System.nanoTime();
+        List<String> hostIds = findHostIds();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            Map<String, List<Reservation>> result = pool.invoke(new LoadTask(hostIds, 0, hostIds.size()));
+            return new ReservationSnapshot(result, System.nanoTime() - started, pool.getParallelism());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method that registers a listener to be told about each change after
+     * it has been written
+     * @param listener
+     */
+    public void addListener(ReservationChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Method that replaces a host's reservations, keeping their IDs. Used
+     * to convert from another format
+     * @param hostId
+     * @param reservations
+     * @throws DataException
+     */
+    void replaceAll(String hostId, List<Reservation> reservations) throws DataException {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            writeAll(reservations, hostId);
+            for (ReservationChangeListener listener : listeners) {
+                listener.hostReplaced(hostId, reservations);
             }
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     /**
@@ -141,23 +388,273 @@ public class ReservationFileRepository implements ReservationRepository {
 
     /**
      * Method that rewrites a specific reservation file with each current
-     * reservation within the list on a line
+     * reservation within the list on a line. The lines are written to a
+     * temporary file that then replaces the host's file in a single move,
+     * so a crash part way through leaves the previous file in place
      * @param reservations
      * @param hostId
      * @throws DataException
      */
     private void writeAll(List<Reservation> reservations, String hostId) throws DataException {
-        try (PrintWriter writer = new PrintWriter(getFilePath(hostId))) {
+        long started = System.nanoTime();
+        Path path = Paths.get(getFilePath(hostId));
+        Path temp = null;
+        int maxID = 0;
+        try {
+            temp = createTempFile(Paths.get(directory), hostId, path);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+
+                writer.write(HEADER); //writing header
+                writer.newLine();
+
+                //writing each Reservation object as a line of string using serialize
+                for (Reservation reservation : reservations) {
+                    writer.write(serialize(reservation));
+                    writer.newLine();
+                    maxID = Math.max(maxID, reservation.getId());
+                }
+                writer.flush();
+
+                //the data has to be on disk before the move makes it the host's file, even
+                //when batched, or a crash could leave an empty file where the old one was
+                if (fsyncPolicy != FsyncPolicy.NONE) {
+                    channel.force(true);
+                }
+            }
+
+            move(temp, path);
+            temp = null;
+            synced(path);
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            deleteIfExists(temp);
+            writeStatistics.recordWrite(System.nanoTime() - started);
+        }
+
+        //the rewritten file is known, so the next add does not need to read it
+        nextIds.put(hostId, new NextId(maxID + 1, fileLength(path)));
+    }
+
+    /**
+     * Method that forces every file written since the last sync, and the
+     * directory holding them, to the storage device
+     * @throws DataException
+     */
+    public void sync() throws DataException {
+        Path[] paths;
+        synchronized (unsynced) {
+            paths = unsynced.toArray(new Path[0]);
+            unsynced.clear();
+        }
+        if (paths.length == 0) {
+            return;
+        }
+
+        try {
+            for (Path path : paths) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+            syncDirectory();
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    /**
+     * Method that returns the timings of the writes made by the repository
+     * @return the write statistics
+     */
+    public WriteStatistics getWriteStatistics() {
+        return writeStatistics;
+    }
+
+    /**
+     * Helper method that applies the fsync policy after a file was written
+     * @param path
+     * @throws IOException
+     * @throws DataException
+     */
+    private void synced(Path path) throws IOException, DataException {
+        if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+            syncDirectory(); //the file itself was forced while it was open
+        } else if (fsyncPolicy == FsyncPolicy.BATCHED) {
+            boolean full;
+            synchronized (unsynced) {
+                unsynced.add(path);
+                full = unsynced.size() >= SYNC_BATCH_SIZE;
+            }
+            if (full) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * Helper method that forces the directory so renamed and created
+     * files survive a crash. Not every platform can open a directory,
+     * in which case this only counts the failure, but a directory that was
+     * opened and could not be forced is an error
+     * @throws IOException
+     */
+    private void syncDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(directory), StandardOpenOption.READ);
+        } catch (IOException ex) {
+            Metrics.counter("io_errors_swallowed_total", "source", "reservation",
+                    "exception", ex.getClass().getSimpleName()).increment();
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+        writeStatistics.recordSync();
+    }
+
+    /**
+     * Helper method that creates the temporary file a host's file is
+     * rewritten to. Files.createTempFile would make it readable by its owner
+     * only, so it is created like any other new file in the directory and
+     * then given the permissions of the file it replaces, if there is one
+     * @param directory
+     * @param hostId
+     * @param target the file the temporary file will replace
+     * @return the temporary file
+     * @throws IOException
+     */
+    static Path createTempFile(Path directory, String hostId, Path target) throws IOException {
+        Path temp = Files.createFile(directory.resolve(
+                hostId + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp"));
+        try {
+            if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            }
+            return temp;
+        } catch (IOException | RuntimeException ex) {
+            deleteIfExists(temp);
+            throw ex;
+        }
+    }
+
+    /**
+     * Helper method that replaces a file with another, atomically when the
+     * file system supports it
+     * @param source
+     * @param target
+     * @throws IOException
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Helper method that removes a temporary file left by a failed write
+     * @param path
+     */
+    private static void deleteIfExists(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            //the write already failed, a stray temporary file is only counted
+            Metrics.counter("io_errors_swallowed_total", "source", "reservation",
+                    "exception", ex.getClass().getSimpleName()).increment();
+        }
+    }
 
-            writer.println(HEADER); //writing header
+    /**
+     * Method that appends a single line to a reservation file, writing the
+     * header first if the file is new and finishing an unterminated last line
+     * @param path
+     * @param line
+     * @return the length of the file after the line was appended
+     * @throws DataException
+     */
+    private long append(Path path, String line) throws DataException {
+        long started = System.nanoTime();
+        long position;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
 
-            //writing each Reservation object as a line of string using serialize
-            for (Reservation reservation: reservations) {
-                writer.println(serialize(reservation));
+            long length = channel.size();
+            StringBuilder text = new StringBuilder();
+            if (length == 0) {
+                text.append(HEADER).append(System.lineSeparator()); //new file needs a header
+            } else {
+                //checking that the last line ends with a line break
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, length - 1);
+                if (last.get(0) != '\n') {
+                    text.append(System.lineSeparator());
+                }
             }
-        } catch (FileNotFoundException ex) {
+            text.append(line).append(System.lineSeparator());
+
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            position = length;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+                channel.force(true);
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            writeStatistics.recordWrite(System.nanoTime() - started);
+        }
+
+        //the channel is closed before the directory is synced
+        try {
+            synced(path);
+        } catch (IOException ex) {
             throw new DataException(ex);
         }
+        return position;
+    }
+
+    /**
+     * Helper method that returns the next ID for a host's file, the caller
+     * holds the host's write lock
+     * @param hostId
+     * @param path
+     * @return the next ID
+     */
+    private int nextId(String hostId, Path path) {
+        //reusing the cached ID only if nothing else has written to the file since
+        NextId cached = nextIds.get(hostId);
+        if (cached != null && cached.length == fileLength(path)) {
+            return cached.id;
+        }
+        //finding the highest ID plus one
+        return readAll(hostId).stream().
+                mapToInt(Reservation::getId).
+                max().
+                orElse(0) + 1;
+    }
+
+    /**
+     * Helper method that returns the length of a file
+     * @param path
+     * @return the length of the file, or -1 if it does not exist
+     */
+    private long fileLength(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            return -1;
+        }
     }
 
     /**
@@ -176,20 +673,20 @@ public class ReservationFileRepository implements ReservationRepository {
     }
 
     /**
-     * Method that reads an array of strings and creates a Reservation object
-     * with the elements assigned to each field
+     * Method that reads the fields of the current record and creates a Reservation
+     * object with the values assigned to each field
      * @param fields
-     * @return the Guest that was created from the fields
+     * @return the Reservation that was created from the fields
      */
-    private Reservation deserialize(String[] fields, String id) {
+    private Reservation deserialize(CsvReader fields, String id) {
         Reservation result = new Reservation();
-        result.setId(Integer.parseInt(fields[0]));
-        result.setStartDate(LocalDate.parse(fields[1]));
-        result.setEndDate(LocalDate.parse(fields[2]));
+        result.setId(fields.getInt(0));
+        result.setStartDate(fields.getLocalDate(1));
+        result.setEndDate(fields.getLocalDate(2));
 
         //simply setting guest ID since that is the only guest info stored within the file
         Guest guest = new Guest();
-        guest.setId(Integer.parseInt(fields[3]));
+        guest.setId(fields.getInt(3));
         result.setGuest(guest);
 
         //simply setting host ID since that is the only guest info stored within the file
@@ -197,8 +694,62 @@ public class ReservationFileRepository implements ReservationRepository {
         host.setId(id);
         result.setHost(host);
 
-        result.setTotal(new BigDecimal(fields[4]));
+        result.setTotal(fields.getBigDecimal(4));
 
         return result;
     }
+
+    private static Timer timer(String method) {
+        return Metrics.timer("repository_call_seconds", "repository", "reservation", "method", method);
+    }
+
+    /**
+     * Reads a range of host files, splitting the range in half until it is
+     * small enough to read on one thread
+     */
+    private class LoadTask extends RecursiveTask<Map<String, List<Reservation>>> {
+        private static final long serialVersionUID = 1L;
+        private static final int FILES_PER_TASK = 4;
+
+        private final List<String> hostIds;
+        private final int from;
+        private final int to;
+
+        private LoadTask(List<String> hostIds, int from, int to) {
+            this.hostIds = hostIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, List<Reservation>> compute() {
+            if (to - from <= FILES_PER_TASK) {
+                Map<String, List<Reservation>> result = new HashMap<>();
+                for (String hostId : hostIds.subList(from, to)) {
+                    result.put(hostId, findByHostId(hostId));
+                }
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            LoadTask left = new LoadTask(hostIds, from, middle);
+            left.fork();
+            Map<String, List<Reservation>> result = new LoadTask(hostIds, middle, to).compute();
+            result.putAll(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Next ID to assign for a host and the file length it was computed from
+     */
+    private static class NextId {
+        private final int id;
+        private final long length;
+
+        private NextId(int id, long length) {
+            this.id = id;
+            this.length = length;
+        }
+    }
 }
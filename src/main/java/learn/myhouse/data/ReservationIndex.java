@@ -0,0 +1,255 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Class that indexes the reservations of every host by guest and by stay
+ * dates, so questions that cut across hosts do not have to open every host
+ * file. It is built by reading the host files in parallel when it is created
+ * and kept current by listening to the reservation repository.
+ */
+public class ReservationIndex implements ReservationChangeListener {
+    private final ReservationFileRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<Integer, CompactReservation>> byHost = new HashMap<>();
+    private final Map<Integer, Set<CompactReservation>> byGuest = new HashMap<>();
+    //stays by start day, in one map per length class so a long stay only widens
+    //the scan of its own class: class k holds stays of 2^(k-1) to 2^k - 1 nights
+    private final TreeMap<Integer, TreeMap<Integer, Set<CompactReservation>>> byLengthAndStart = new TreeMap<>();
+    private int size;
+
+    //changes heard while the files are being read, applied once they are loaded
+    private List<Runnable> changesWhileBuilding;
+
+    /**
+     * constructor that registers with the repository and reads every host file
+     * @param repository
+     */
+    public ReservationIndex(ReservationFileRepository repository) {
+        this.repository = repository;
+        repository.addListener(this);
+        rebuild();
+    }
+
+    /**
+     * Method that drops the index and reads every host file again. Changes
+     * made while the files are read are applied afterwards in the order they
+     * happened, and since each one carries the state it left behind the
+     * result matches the files whichever was read first
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesWhileBuilding = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        //reading outside the lock so writers are never blocked behind the scan
+        ReservationSnapshot snapshot = repository.loadAll(Runtime.getRuntime().availableProcessors());
+
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Map.Entry<String, List<Reservation>> host : snapshot.getReservations().entrySet()) {
+                replace(host.getKey(), host.getValue());
+            }
+            for (Runnable change : changesWhileBuilding) {
+                change.run();
+            }
+            changesWhileBuilding = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method that finds every reservation a guest holds across all hosts
+     * @param guestId
+     * @return the reservations ordered by start date
+     */
+    public List<Reservation> findByGuestId(int guestId) {
+        lock.readLock().lock();
+        try {
+            return toReservations(byGuest.getOrDefault(guestId, Set.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method that finds every reservation across all hosts with at least one
+     * day in common with the range, including the first and last days
+     * @param start
+     * @param end
+     * @return the reservations ordered by start date
+     */
+    public List<Reservation> findOverlapping(LocalDate start, LocalDate end) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+        if (endDay < startDay) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            //only stays starting at most their class's longest stay before the range can reach into it
+            ArrayList<CompactReservation> matches = new ArrayList<>();
+            for (Map.Entry<Integer, TreeMap<Integer, Set<CompactReservation>>> lengthClass : byLengthAndStart.entrySet()) {
+                int from = (int) Math.max(Integer.MIN_VALUE, (long) startDay - longestNights(lengthClass.getKey()));
+                for (Set<CompactReservation> entries : lengthClass.getValue().subMap(from, true, endDay, true).values()) {
+                    for (CompactReservation entry : entries) {
+                        if (entry.getEndDay() >= startDay) {
+                            matches.add(entry);
+                        }
+                    }
+                }
+            }
+            return toReservations(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method that returns the number of reservations indexed
+     * @return the reservation count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reservationSaved(Reservation reservation) {
+        CompactReservation entry = CompactReservation.of(reservation);
+        change(() -> put(entry));
+    }
+
+    @Override
+    public void reservationDeleted(int id, String hostId) {
+        change(() -> remove(hostId, id));
+    }
+
+    @Override
+    public void hostReplaced(String hostId, List<Reservation> reservations) {
+        List<Reservation> copy = new ArrayList<>(reservations);
+        change(() -> replace(hostId, copy));
+    }
+
+    /**
+     * Helper method that applies a change now, or after the files are read
+     * if a rebuild is in progress
+     * @param change
+     */
+    private void change(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (changesWhileBuilding != null) {
+                changesWhileBuilding.add(change);
+            } else {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        byHost.clear();
+        byGuest.clear();
+        byLengthAndStart.clear();
+        size = 0;
+    }
+
+    private void replace(String hostId, Collection<Reservation> reservations) {
+        Map<Integer, CompactReservation> existing = byHost.get(hostId);
+        if (existing != null) {
+            for (Integer id : new ArrayList<>(existing.keySet())) {
+                remove(hostId, id);
+            }
+        }
+        for (Reservation reservation : reservations) {
+            put(CompactReservation.of(reservation));
+        }
+    }
+
+    private void put(CompactReservation entry) {
+        remove(entry.getHostId(), entry.getId());
+
+        byHost.computeIfAbsent(entry.getHostId(), id -> new HashMap<>()).put(entry.getId(), entry);
+        byGuest.computeIfAbsent(entry.getGuestId(), id -> new LinkedHashSet<>()).add(entry);
+        byLengthAndStart.computeIfAbsent(lengthClass(entry), k -> new TreeMap<>())
+                .computeIfAbsent(entry.getStartDay(), day -> new LinkedHashSet<>()).add(entry);
+        size++;
+    }
+
+    private void remove(String hostId, int id) {
+        Map<Integer, CompactReservation> host = byHost.get(hostId);
+        CompactReservation entry = host == null ? null : host.remove(id);
+        if (entry == null) {
+            return;
+        }
+        if (host.isEmpty()) {
+            byHost.remove(hostId);
+        }
+        removeFrom(byGuest, entry.getGuestId(), entry);
+        TreeMap<Integer, Set<CompactReservation>> byStart = byLengthAndStart.get(lengthClass(entry));
+        if (byStart != null) {
+            removeFrom(byStart, entry.getStartDay(), entry);
+            if (byStart.isEmpty()) {
+                byLengthAndStart.remove(lengthClass(entry));
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Helper method that returns the length class of a stay, the number of
+     * bits in its length in nights
+     * @param entry
+     * @return the length class, 0 for a stay that starts and ends on one day
+     */
+    private static int lengthClass(CompactReservation entry) {
+        long nights = Math.max(0L, (long) entry.getEndDay() - entry.getStartDay());
+        return 64 - Long.numberOfLeadingZeros(nights);
+    }
+
+    private static long longestNights(int lengthClass) {
+        return (1L << lengthClass) - 1;
+    }
+
+    private static <K> void removeFrom(Map<K, Set<CompactReservation>> index, K key, CompactReservation entry) {
+        Set<CompactReservation> entries = index.get(key);
+        if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<Reservation> toReservations(Collection<CompactReservation> entries) {
+        ArrayList<Reservation> result = new ArrayList<>(entries.size());
+        for (CompactReservation entry : entries) {
+            result.add(entry.toReservation());
+        }
+        result.sort(Comparator.comparing(Reservation::getStartDate));
+        return result;
+    }
+}
@@ -0,0 +1,287 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Class that appends reservation changes to a single log file. Each entry is
+ * one line holding the whole state the change leaves behind, so applying an
+ * entry twice has the same result as applying it once:
+ *
+ *   P,hostId,id,start,end,guestId,total,crc    reservation id now has these values
+ *   D,hostId,id,crc                            reservation id no longer exists
+ *
+ * The crc is the CRC32 of the text before it. Reading stops at the first
+ * line that is cut short or does not match its crc, which is where a crash
+ * interrupted an append, and the log is cut back to the last whole entry
+ */
+public class ReservationJournal implements AutoCloseable {
+    static final char PUT = 'P';
+    static final char DELETE = 'D';
+
+    //entries that the BATCHED policy lets build up before forcing them
+    private static final int SYNC_BATCH_SIZE = 32;
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel channel;
+    private final WriteStatistics writeStatistics = new WriteStatistics();
+    private int unsynced;
+    private long entries;
+
+    /**
+     * constructor that opens the log, creating it if it does not exist
+     * @param path
+     * @param fsyncPolicy
+     * @throws DataException
+     */
+    public ReservationJournal(String path, FsyncPolicy fsyncPolicy) throws DataException {
+        this.path = Paths.get(path);
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            channel = FileChannel.open(this.path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    /**
+     * Method that records that a reservation now has the given values
+     * @param reservation
+     * @throws DataException
+     */
+    public void put(Reservation reservation) throws DataException {
+        append(String.format("%s,%s,%s,%s,%s,%s,%s",
+                PUT,
+                reservation.getHost().getId(),
+                reservation.getId(),
+                reservation.getStartDate(),
+                reservation.getEndDate(),
+                reservation.getGuest().getId(),
+                reservation.getTotal()));
+    }
+
+    /**
+     * Method that records that a reservation was deleted
+     * @param id
+     * @param hostId
+     * @throws DataException
+     */
+    public void delete(int id, String hostId) throws DataException {
+        append(String.format("%s,%s,%s", DELETE, hostId, id));
+    }
+
+    /**
+     * Method that reads every whole entry in the log and cuts off a
+     * partial entry left at the end by a crash
+     * @return the entries in the order they were written
+     * @throws DataException
+     */
+    public synchronized List<Entry> readAll() throws DataException {
+        try {
+            byte[] contents = Files.readAllBytes(path);
+
+            ArrayList<Entry> result = new ArrayList<>();
+            int valid = 0;
+            //an entry only counts once its line break was written
+            for (int end = 0; end < contents.length; end++) {
+                if (contents[end] != '\n') {
+                    continue;
+                }
+                Entry entry = parse(new String(contents, valid, end - valid, StandardCharsets.UTF_8));
+                if (entry == null) {
+                    break;
+                }
+                result.add(entry);
+                valid = end + 1;
+            }
+
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+            }
+            entries = result.size();
+            return result;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    /**
+     * Method that empties the log once its entries are in the host files
+     * @throws DataException
+     */
+    public synchronized void reset() throws DataException {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            unsynced = 0;
+            entries = 0;
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    /**
+     * Method that forces the entries appended so far to the storage device
+     * @throws DataException
+     */
+    public synchronized void sync() throws DataException {
+        if (unsynced == 0) {
+            return;
+        }
+        try {
+            channel.force(false);
+            unsynced = 0;
+            writeStatistics.recordSync();
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    /**
+     * Method that returns the number of entries in the log
+     * @return the entry count
+     */
+    public synchronized long getEntryCount() {
+        return entries;
+    }
+
+    public WriteStatistics getWriteStatistics() {
+        return writeStatistics;
+    }
+
+    @Override
+    public synchronized void close() throws DataException {
+        try {
+            sync();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                throw new DataException(ex);
+            }
+        }
+    }
+
+    /**
+     * Helper method that appends a line with its crc to the end of the log
+     * and forces it according to the fsync policy
+     * @param text
+     * @throws DataException
+     */
+    private synchronized void append(String text) throws DataException {
+        long started = System.nanoTime();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((text + "," + crc(text) + "\n").getBytes(StandardCharsets.UTF_8));
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            entries++;
+            unsynced++;
+
+            if (fsyncPolicy == FsyncPolicy.PER_WRITE
+                    || (fsyncPolicy == FsyncPolicy.BATCHED && unsynced >= SYNC_BATCH_SIZE)) {
+                sync();
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        } finally {
+            writeStatistics.recordWrite(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Helper method that converts a line back to an entry
+     * @param line
+     * @return the entry, or null if the line is damaged
+     */
+    private static Entry parse(String line) {
+        int split = line.lastIndexOf(',');
+        if (split < 0 || !line.substring(split + 1).equals(crc(line.substring(0, split)))) {
+            return null;
+        }
+
+        String[] fields = line.substring(0, split).split(",", -1);
+        try {
+            if (fields.length == 3 && fields[0].equals(String.valueOf(DELETE))) {
+                return new Entry(DELETE, fields[1], Integer.parseInt(fields[2]), null);
+            }
+            if (fields.length == 7 && fields[0].equals(String.valueOf(PUT))) {
+                Reservation reservation = new Reservation();
+                reservation.setId(Integer.parseInt(fields[2]));
+                reservation.setStartDate(LocalDate.parse(fields[3]));
+                reservation.setEndDate(LocalDate.parse(fields[4]));
+
+                Guest guest = new Guest();
+                guest.setId(Integer.parseInt(fields[5]));
+                reservation.setGuest(guest);
+
+                Host host = new Host();
+                host.setId(fields[1]);
+                reservation.setHost(host);
+
+                reservation.setTotal(fields[6].equals("null") ? null : new BigDecimal(fields[6]));
+                return new Entry(PUT, fields[1], reservation.getId(), reservation);
+            }
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String crc(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * A single change read back from the log
+     */
+    public static class Entry {
+        private final char operation;
+        private final String hostId;
+        private final int id;
+        private final Reservation reservation;
+
+        private Entry(char operation, String hostId, int id, Reservation reservation) {
+            this.operation = operation;
+            this.hostId = hostId;
+            this.id = id;
+            this.reservation = reservation;
+        }
+
+        public boolean isDelete() {
+            return operation == DELETE;
+        }
+
+        public String getHostId() {
+            return hostId;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Reservation getReservation() {
+            return reservation;
+        }
+    }
+}
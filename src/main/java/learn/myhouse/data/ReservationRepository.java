@@ -1,15 +1,62 @@
 package learn.myhouse.data;
 
+import learn.myhouse.model.CompactReservation;
 import learn.myhouse.model.Reservation;
 
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface ReservationRepository {
     List<Reservation> findByHostId(String hostId);
 
+    /**
+     * Method that finds a host's reservations in their compact form for
+     * listings, overlap checks and reports. Repositories that can read
+     * their storage straight into it override this
+     * @param hostId
+     * @return the host's reservations
+     */
+    default List<CompactReservation> findCompactByHostId(String hostId) {
+        List<Reservation> reservations = findByHostId(hostId);
+        ArrayList<CompactReservation> result = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            result.add(CompactReservation.of(reservation));
+        }
+        return result;
+    }
+
     Reservation add(Reservation reservation) throws DataException;
 
+    /**
+     * Method that adds several Reservations for one host. Repositories that
+     * can store them with a single write override this
+     * @param hostId
+     * @param reservations
+     * @return the Reservations that were added
+     * @throws DataException
+     */
+    default List<Reservation> addAll(String hostId, List<Reservation> reservations) throws DataException {
+        List<Reservation> result = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            result.add(add(reservation));
+        }
+        return result;
+    }
+
     boolean update(Reservation reservation) throws DataException;
 
     boolean deleteById(int id, String hostID) throws DataException;
+
+    /**
+     * Method that returns the size and last modified time of the file a
+     * host's reservations are stored in, so callers keeping something built
+     * from it can tell when it has changed. Repositories without a file per
+     * host return null
+     * @param hostId
+     * @return the file's attributes, or null if there is no file
+     */
+    default BasicFileAttributes getFileAttributes(String hostId) {
+        return null;
+    }
 }
@@ -0,0 +1,92 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that holds the reservations of every host as read by a bulk load,
+ * along with how long the load took. The map and lists cannot be changed
+ */
+public class ReservationSnapshot {
+    private final Map<String, List<Reservation>> reservations;
+    private final int rowCount;
+    private final long elapsedNanos;
+    private final int parallelism;
+
+    /**
+     * constructor that accepts the reservations read for each host
+     * @param reservations
+     * @param elapsedNanos
+     * @param parallelism
+     */
+    ReservationSnapshot(Map<String, List<Reservation>> reservations, long elapsedNanos, int parallelism) {
+        TreeMap<String, List<Reservation>> copy = new TreeMap<>();
+        int rows = 0;
+        for (Map.Entry<String, List<Reservation>> host : reservations.entrySet()) {
+            copy.put(host.getKey(), Collections.unmodifiableList(new ArrayList<>(host.getValue())));
+            rows += host.getValue().size();
+        }
+        this.reservations = Collections.unmodifiableMap(copy);
+        this.rowCount = rows;
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Method that returns the reservations of every host keyed by host ID
+     * @return the reservations in host ID order
+     */
+    public Map<String, List<Reservation>> getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Method that returns the reservations read for a host
+     * @param hostId
+     * @return the host's reservations, empty if the host had no file
+     */
+    public List<Reservation> findByHostId(String hostId) {
+        return reservations.getOrDefault(hostId, List.of());
+    }
+
+    public int getFileCount() {
+        return reservations.size();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public double getFilesPerSecond() {
+        return perSecond(getFileCount());
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(rowCount);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("files=%s rows=%s parallelism=%s elapsed=%sms files/s=%.0f rows/s=%.0f",
+                getFileCount(), rowCount, parallelism, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                getFilesPerSecond(), getRowsPerSecond());
+    }
+}
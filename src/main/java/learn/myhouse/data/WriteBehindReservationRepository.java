@@ -0,0 +1,421 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Class that buffers reservation changes in memory and writes each host's
+ * file once for many changes. A host is written when the buffered changes
+ * reach the size threshold, when its oldest unwritten change is older than
+ * the durability window, or when the repository is flushed or closed.
+ * Changes still in memory are lost if the process dies, so the window is
+ * the most work a crash can cost
+ */
+public class WriteBehindReservationRepository implements ReservationRepository, AutoCloseable {
+    private final ReservationFileRepository delegate;
+    private final int maxPending;
+    private final long maxDelayNanos;
+
+    //hosts with changes that have not been written yet
+    private final Map<String, HostBuffer> buffers = new ConcurrentHashMap<>();
+    private final LockStripes hostLocks = new LockStripes();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+
+    //statistics
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong rewrites = new AtomicLong();
+    private volatile DataException lastFailure;
+
+    /**
+     * constructor that accepts the repository that files are written through
+     * and the thresholds that trigger a write
+     * @param delegate
+     * @param maxPending number of buffered changes across all hosts that triggers a flush
+     * @param maxDelayMillis longest a change stays in memory, or 0 to only flush on size or request
+     */
+    public WriteBehindReservationRepository(ReservationFileRepository delegate, int maxPending, long maxDelayMillis) {
+        this.delegate = delegate;
+        this.maxPending = Math.max(1, maxPending);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+
+        if (maxDelayMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            //checking several times per window so no change waits much longer than the window
+            long period = Math.max(1, maxDelayMillis / 4);
+            flusher.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Method that returns a host's reservations including the changes that
+     * have not been written yet
+     * @param hostId
+     * @return the list of reservations
+     */
+    @Override
+    public List<Reservation> findByHostId(String hostId) {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffers.get(hostId);
+            if (buffer == null) {
+                return delegate.findByHostId(hostId);
+            }
+            ArrayList<Reservation> result = new ArrayList<>(buffer.reservations.size());
+            for (Reservation reservation : buffer.reservations.values()) {
+                result.add(copy(reservation));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that gives a Reservation the next ID for its host and buffers it
+     * @param reservation
+     * @return the Reservation object that was added
+     * @throws DataException
+     */
+    @Override
+    public Reservation add(Reservation reservation) throws DataException {
+        if (reservation == null) {
+            return null;
+        }
+
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffer(hostId);
+            reservation.setId(buffer.maxId + 1);
+            buffer.reservations.put(reservation.getId(), copy(reservation));
+            buffer.maxId = reservation.getId();
+            changed(buffer);
+        } finally {
+            lock.unlock();
+        }
+        flushIfFull();
+        return reservation;
+    }
+
+    /**
+     * Method that buffers the replacement of an existing Reservation
+     * @param reservation
+     * @return whether the update was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean update(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffer(hostId);
+            if (!buffer.reservations.containsKey(reservation.getId())) {
+                dropIfUnchanged(hostId, buffer);
+                return false;
+            }
+            //replacing the value keeps the reservation where it was in the file
+            buffer.reservations.put(reservation.getId(), copy(reservation));
+            changed(buffer);
+        } finally {
+            lock.unlock();
+        }
+        flushIfFull();
+        return true;
+    }
+
+    /**
+     * Method that buffers the deletion of an existing Reservation
+     * @param id
+     * @param hostID
+     * @return whether the deletion was successful
+     * @throws DataException
+     */
+    @Override
+    public boolean deleteById(int id, String hostID) throws DataException {
+        Lock lock = hostLocks.writeLock(hostID);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffer(hostID);
+            if (buffer.reservations.remove(id) == null) {
+                dropIfUnchanged(hostID, buffer);
+                return false;
+            }
+            if (id == buffer.maxId) {
+                //the next ID is the highest remaining ID plus one, as in the file
+                buffer.maxId = buffer.reservations.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+            }
+            changed(buffer);
+        } finally {
+            lock.unlock();
+        }
+        flushIfFull();
+        return true;
+    }
+
+    /**
+     * Method that returns the ID the next Reservation added for a host will
+     * be given, so a caller can record the change before making it. The
+     * caller keeps other changes to the host out until it has added it
+     * @param hostId
+     * @return the next ID
+     */
+    int nextId(String hostId) {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffers.get(hostId);
+            if (buffer != null) {
+                return buffer.maxId + 1;
+            }
+            return delegate.findCompactByHostId(hostId).stream()
+                    .mapToInt(CompactReservation::getId).max().orElse(0) + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that checks whether a host has a Reservation with the given ID,
+     * including changes that have not been written yet
+     * @param hostId
+     * @param id
+     * @return whether the Reservation exists
+     */
+    boolean contains(String hostId, int id) {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffers.get(hostId);
+            if (buffer != null) {
+                return buffer.reservations.containsKey(id);
+            }
+            return delegate.findCompactByHostId(hostId).stream().anyMatch(reservation -> reservation.getId() == id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that writes every host with buffered changes
+     * @throws DataException
+     */
+    public void flush() throws DataException {
+        DataException failure = null;
+        for (String hostId : new ArrayList<>(buffers.keySet())) {
+            try {
+                flush(hostId);
+            } catch (DataException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Method that stops the background flush and writes the remaining changes
+     * @throws DataException
+     */
+    @Override
+    public void close() throws DataException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Method that returns the number of changes made through the repository
+     * @return the mutation count
+     */
+    public long getMutationCount() {
+        return mutations.get();
+    }
+
+    /**
+     * Method that returns the number of host files written
+     * @return the rewrite count
+     */
+    public long getRewriteCount() {
+        return rewrites.get();
+    }
+
+    /**
+     * Method that returns the error of the last background flush that failed
+     * @return the error, or null if none has failed
+     */
+    public DataException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Method that returns the number of changes that have not been written
+     * @return the pending change count
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Helper method that writes a host's buffered reservations in one rewrite.
+     * The buffer is only dropped once the write succeeded
+     * @param hostId
+     * @throws DataException
+     */
+    private void flush(String hostId) throws DataException {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffers.get(hostId);
+            if (buffer == null) {
+                return;
+            }
+            delegate.replaceAll(hostId, new ArrayList<>(buffer.reservations.values()));
+            rewrites.incrementAndGet();
+            buffers.remove(hostId);
+            pending.addAndGet(-buffer.changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that flushes the hosts whose oldest change has been
+     * buffered for longer than the durability window. Runs on the flusher
+     * thread, so any failure is kept rather than thrown, which would stop
+     * the schedule
+     */
+    private void flushExpired() {
+        long now = System.nanoTime();
+        for (String hostId : new ArrayList<>(buffers.keySet())) {
+            try {
+                if (isExpired(hostId, now)) {
+                    flush(hostId);
+                }
+            } catch (DataException ex) {
+                lastFailure = ex; //kept buffered and tried again on the next run
+            } catch (RuntimeException ex) {
+                lastFailure = new DataException(ex);
+            }
+        }
+    }
+
+    /**
+     * Helper method that checks whether a host has changes older than the
+     * durability window, reading the buffer under the host's lock
+     * @param hostId
+     * @param now
+     * @return whether the host should be flushed
+     */
+    private boolean isExpired(String hostId, long now) {
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            HostBuffer buffer = buffers.get(hostId);
+            return buffer != null && buffer.changes > 0 && now - buffer.firstChange >= maxDelayNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushIfFull() throws DataException {
+        if (pending.get() >= maxPending) {
+            flush();
+        }
+    }
+
+    /**
+     * Helper method that returns the buffer for a host, reading the host's
+     * file the first time it changes. The caller holds the host's lock
+     * @param hostId
+     * @return the host's buffer
+     */
+    private HostBuffer buffer(String hostId) {
+        return buffers.computeIfAbsent(hostId, id -> new HostBuffer(delegate.findByHostId(id)));
+    }
+
+    /**
+     * Helper method that stops holding a host in memory when nothing was
+     * changed, so reads go back to the file
+     * @param hostId
+     * @param buffer
+     */
+    private void dropIfUnchanged(String hostId, HostBuffer buffer) {
+        if (buffer.changes == 0) {
+            buffers.remove(hostId);
+        }
+    }
+
+    private void changed(HostBuffer buffer) {
+        if (buffer.changes++ == 0) {
+            buffer.firstChange = System.nanoTime();
+        }
+        pending.incrementAndGet();
+        mutations.incrementAndGet();
+    }
+
+    /**
+     * Helper method that copies the stored fields of a reservation so the
+     * buffer is not changed through objects handed to or from callers
+     * @param reservation
+     * @return the copy
+     */
+    private static Reservation copy(Reservation reservation) {
+        Guest guest = new Guest();
+        guest.setId(reservation.getGuest().getId());
+        Host host = new Host();
+        host.setId(reservation.getHost().getId());
+
+        Reservation result = new Reservation(reservation.getStartDate(), reservation.getEndDate(),
+                guest, host, reservation.getTotal());
+        result.setId(reservation.getId());
+        return result;
+    }
+
+    /**
+     * Reservations of a host in file order with the changes not written yet
+     */
+    private static class HostBuffer {
+        private final LinkedHashMap<Integer, Reservation> reservations = new LinkedHashMap<>();
+        private int maxId;
+        private int changes;
+        private long firstChange;
+
+        private HostBuffer(List<Reservation> stored) {
+            for (Reservation reservation : stored) {
+                reservations.put(reservation.getId(), reservation);
+                maxId = Math.max(maxId, reservation.getId());
+            }
+        }
+    }
+}
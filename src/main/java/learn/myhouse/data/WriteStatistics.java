@@ -0,0 +1,58 @@
+package learn.myhouse.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that records how long file writes take so the cost of a
+ * FsyncPolicy can be measured.
+ */
+public class WriteStatistics {
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long syncs;
+
+    /**
+     * Method that records the duration of a write
+     * @param nanos
+     */
+    public synchronized void recordWrite(long nanos) {
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Method that records a sync of written files to the storage device
+     */
+    public synchronized void recordSync() {
+        syncs++;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getSyncs() {
+        return syncs;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized double getAverageMicros() {
+        return count == 0 ? 0 : totalNanos / (double) count / 1000;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("writes=%s syncs=%s avg=%.1fus max=%sus total=%sms",
+                count, syncs, getAverageMicros(),
+                TimeUnit.NANOSECONDS.toMicros(maxNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos));
+    }
+}
@@ -0,0 +1,111 @@
+package learn.myhouse.domain;
+
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class that holds the revenue, nights and occupancy of every host over a
+ * range of months, grouped by host, state, city, month and whether the
+ * night was a weekday or weekend (Friday or Saturday) night. Groups are in
+ * key order. Reports for parts of the hosts are built in parallel and then
+ * merged.
+ */
+public class AnalyticsReport {
+    public static final String WEEKDAY = "weekday";
+    public static final String WEEKEND = "weekend";
+
+    private final YearMonth from;
+    private final YearMonth to;
+    private final Map<String, RevenueTotals> byHost = new TreeMap<>();
+    private final Map<String, RevenueTotals> byState = new TreeMap<>();
+    private final Map<String, RevenueTotals> byCity = new TreeMap<>();
+    private final Map<YearMonth, RevenueTotals> byMonth = new TreeMap<>();
+    private final Map<String, RevenueTotals> byDayType = new TreeMap<>();
+    private final RevenueTotals total = new RevenueTotals();
+
+    AnalyticsReport(YearMonth from, YearMonth to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public YearMonth getFrom() {
+        return from;
+    }
+
+    public YearMonth getTo() {
+        return to;
+    }
+
+    public Map<String, RevenueTotals> getByHost() {
+        return Collections.unmodifiableMap(byHost);
+    }
+
+    public Map<String, RevenueTotals> getByState() {
+        return Collections.unmodifiableMap(byState);
+    }
+
+    //keyed by city and state, e.g. "Amarillo, TX"
+    public Map<String, RevenueTotals> getByCity() {
+        return Collections.unmodifiableMap(byCity);
+    }
+
+    public Map<YearMonth, RevenueTotals> getByMonth() {
+        return Collections.unmodifiableMap(byMonth);
+    }
+
+    //keyed by WEEKDAY and WEEKEND
+    public Map<String, RevenueTotals> getByDayType() {
+        return Collections.unmodifiableMap(byDayType);
+    }
+
+    public RevenueTotals getTotal() {
+        return total;
+    }
+
+    static String cityKey(String city, String state) {
+        return city + ", " + state;
+    }
+
+    RevenueTotals host(String hostId) {
+        return byHost.computeIfAbsent(hostId, key -> new RevenueTotals());
+    }
+
+    RevenueTotals state(String state) {
+        return byState.computeIfAbsent(state, key -> new RevenueTotals());
+    }
+
+    RevenueTotals city(String city) {
+        return byCity.computeIfAbsent(city, key -> new RevenueTotals());
+    }
+
+    RevenueTotals month(YearMonth month) {
+        return byMonth.computeIfAbsent(month, key -> new RevenueTotals());
+    }
+
+    RevenueTotals dayType(String dayType) {
+        return byDayType.computeIfAbsent(dayType, key -> new RevenueTotals());
+    }
+
+    /**
+     * Method that adds another report over the same months into this one
+     * @param other
+     * @return this report
+     */
+    AnalyticsReport merge(AnalyticsReport other) {
+        merge(byHost, other.byHost);
+        merge(byState, other.byState);
+        merge(byCity, other.byCity);
+        merge(byMonth, other.byMonth);
+        merge(byDayType, other.byDayType);
+        total.add(other.total);
+        return this;
+    }
+
+    private static <K> void merge(Map<K, RevenueTotals> into, Map<K, RevenueTotals> from) {
+        for (Map.Entry<K, RevenueTotals> group : from.entrySet()) {
+            into.computeIfAbsent(group.getKey(), key -> new RevenueTotals()).add(group.getValue());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.HostRepository;
+import learn.myhouse.data.ReservationChangeListener;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.metrics.Counter;
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.math.BigDecimal;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that works out revenue, nights and occupancy from the reservation
+ * files for a range of months. Each host's reservations are summed into
+ * monthly totals the first time they are needed and kept until the host's
+ * file changes, either through the repository or by the file's size or
+ * last modified time changing outside it, so only changed hosts are read
+ * again. The host files are checked and read a few at a time on threads of
+ * the service's own, then the totals in memory are merged as a parallel
+ * stream.
+ *
+ * A stay's nights belong to the month and day type of each night, so a
+ * stay across two months counts in both. Its total is shared between the
+ * nights in proportion to the host's standard and weekend rates, the way
+ * it was priced. The reservation itself counts in the month it starts.
+ */
+public class AnalyticsService implements ReservationChangeListener {
+    private static final Counter CACHE_HITS = Metrics.counter("analytics_cache_total", "result", "hit");
+    private static final Counter CACHE_LOADS = Metrics.counter("analytics_cache_total", "result", "load");
+    //threads that read host files, each read waits on a file rather than a core
+    private static final int LOAD_THREADS = 4;
+
+    private final ReservationFileRepository reservationRepository;
+    private final HostRepository hostRepository;
+    private final PricingEngine pricingEngine;
+
+    private final Map<String, HostHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * constructor that accepts the repositories reports are read from
+     * @param reservationRepository
+     * @param hostRepository
+     * @param pricingEngine used to count weekend nights
+     */
+    public AnalyticsService(ReservationFileRepository reservationRepository, HostRepository hostRepository,
+                            PricingEngine pricingEngine) {
+        this.reservationRepository = reservationRepository;
+        this.hostRepository = hostRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Method that builds a report over every host from the first day of one
+     * month to the last day of another. Hosts without reservations count
+     * towards the nights available
+     * @param from
+     * @param to
+     * @return the report
+     */
+    public AnalyticsReport report(YearMonth from, YearMonth to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("end month must not be before start month");
+        }
+
+        Map<String, Host> hosts = new HashMap<>();
+        for (Host host : hostRepository.findAll()) {
+            hosts.put(host.getId(), host);
+        }
+        //hosts with a file but missing from the hosts file are still counted
+        Set<String> hostIds = new LinkedHashSet<>(hosts.keySet());
+        hostIds.addAll(reservationRepository.findHostIds());
+
+        Map<String, HostHistory> loaded = loadHistories(new ArrayList<>(hostIds), hosts);
+        AnalyticsReport result = new ArrayList<>(hostIds).parallelStream()
+                .map(hostId -> report(hosts.get(hostId), loaded.get(hostId), from, to))
+                .reduce(AnalyticsReport::merge)
+                .orElseGet(() -> new AnalyticsReport(from, to));
+
+        //nights each host could have been booked in each group
+        LocalDate start = from.atDay(1);
+        int days = (int) (to.atEndOfMonth().toEpochDay() - start.toEpochDay()) + 1;
+        long weekendNights = pricingEngine.countWeekendNights(start, days);
+        int hostCount = hostIds.size();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            result.month(month).addAvailable((long) hostCount * month.lengthOfMonth());
+        }
+        result.dayType(AnalyticsReport.WEEKDAY).addAvailable(hostCount * (days - weekendNights));
+        result.dayType(AnalyticsReport.WEEKEND).addAvailable(hostCount * weekendNights);
+        result.getTotal().addAvailable((long) hostCount * days);
+        for (String hostId : hostIds) {
+            Host host = hosts.get(hostId);
+            result.host(hostId).addAvailable(days);
+            result.state(state(host)).addAvailable(days);
+            result.city(city(host)).addAvailable(days);
+        }
+        return result;
+    }
+
+    /**
+     * Helper method that returns the monthly totals of each host, checking
+     * and reading the host files on a small pool of threads that is shut
+     * down afterwards, which keeps the file reads off the common fork join pool
+     * @param hostIds
+     * @param hosts the hosts in the hosts file by ID
+     * @return the monthly totals by host ID
+     */
+    private Map<String, HostHistory> loadHistories(List<String> hostIds, Map<String, Host> hosts) {
+        Map<String, HostHistory> result = new HashMap<>();
+        if (hostIds.size() < 2) {
+            for (String hostId : hostIds) {
+                result.put(hostId, getHistory(hostId, hosts.get(hostId)));
+            }
+            return result;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(LOAD_THREADS, hostIds.size()));
+        try {
+            Map<String, Future<HostHistory>> loads = new HashMap<>();
+            for (String hostId : hostIds) {
+                loads.put(hostId, executor.submit(() -> getHistory(hostId, hosts.get(hostId))));
+            }
+            for (Map.Entry<String, Future<HostHistory>> load : loads.entrySet()) {
+                result.put(load.getKey(), load.getValue().get());
+            }
+            return result;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("report was interrupted", ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Method that returns a host's monthly totals, summing them from the
+     * host's file when they have not been read, or the file or the host's
+     * rates have changed
+     * @param hostId
+     * @param host the host, or null if it is not in the hosts file
+     * @return the host's monthly totals
+     */
+    HostHistory getHistory(String hostId, Host host) {
+        BasicFileAttributes attributes = reservationRepository.getFileAttributes(hostId);
+        long lastModified = attributes == null ? -1 : attributes.lastModifiedTime().toMillis();
+        long size = attributes == null ? -1 : attributes.size();
+        long standardCents = rateCents(host == null ? null : host.getStandardRate());
+        long weekendCents = rateCents(host == null ? null : host.getWeekendRate());
+
+        HostHistory history = histories.get(hostId);
+        if (history != null && history.matches(lastModified, size, standardCents, weekendCents)) {
+            CACHE_HITS.increment();
+            return history;
+        }
+
+        //the attributes are read before the rows, so a change during the read is caught next time
+        CACHE_LOADS.increment();
+        history = new HostHistory(reservationRepository.findCompactByHostId(hostId), lastModified, size,
+                standardCents, weekendCents);
+        histories.put(hostId, history);
+        return history;
+    }
+
+    @Override
+    public void reservationSaved(Reservation reservation) {
+        histories.remove(reservation.getHost().getId());
+    }
+
+    @Override
+    public void reservationDeleted(int id, String hostId) {
+        histories.remove(hostId);
+    }
+
+    @Override
+    public void hostReplaced(String hostId, List<Reservation> reservations) {
+        histories.remove(hostId);
+    }
+
+    /**
+     * Helper method that builds a report for a single host
+     * @param host the host, or null if it is not in the hosts file
+     * @param history
+     * @param from
+     * @param to
+     * @return the host's report
+     */
+    private static AnalyticsReport report(Host host, HostHistory history, YearMonth from, YearMonth to) {
+        AnalyticsReport result = new AnalyticsReport(from, to);
+        String hostId = host == null ? history.hostId : host.getId();
+        if (hostId == null) {
+            return result; //no file and no reservations
+        }
+
+        RevenueTotals hostTotals = result.host(hostId);
+        for (Map.Entry<YearMonth, MonthTotals> entry : history.months.subMap(from, true, to, true).entrySet()) {
+            MonthTotals month = entry.getValue();
+            long reservations = month.weekdayReservations + month.weekendReservations;
+            long nights = month.weekdayNights + month.weekendNights;
+            long revenue = month.weekdayCents + month.weekendCents;
+
+            hostTotals.add(reservations, nights, revenue);
+            result.month(entry.getKey()).add(reservations, nights, revenue);
+            result.dayType(AnalyticsReport.WEEKDAY).add(month.weekdayReservations, month.weekdayNights, month.weekdayCents);
+            result.dayType(AnalyticsReport.WEEKEND).add(month.weekendReservations, month.weekendNights, month.weekendCents);
+            result.getTotal().add(reservations, nights, revenue);
+        }
+        result.state(state(host)).add(hostTotals);
+        result.city(city(host)).add(hostTotals);
+        return result;
+    }
+
+    private static String state(Host host) {
+        return host == null ? "unknown" : host.getState();
+    }
+
+    private static String city(Host host) {
+        return host == null ? "unknown" : AnalyticsReport.cityKey(host.getCity(), host.getState());
+    }
+
+    private static long rateCents(BigDecimal rate) {
+        return rate == null ? 0 : CompactReservation.toCents(rate);
+    }
+
+    private static boolean isWeekend(int epochDay) {
+        DayOfWeek day = LocalDate.ofEpochDay(epochDay).getDayOfWeek();
+        return day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY;
+    }
+
+    /**
+     * Monthly totals of one host's reservations, with the size and last
+     * modified time of the file they were read from and the rates their
+     * totals were shared out by
+     */
+    static class HostHistory {
+        private final String hostId;
+        private final NavigableMap<YearMonth, MonthTotals> months = new TreeMap<>();
+        private final long lastModified;
+        private final long size;
+        private final long standardCents;
+        private final long weekendCents;
+
+        HostHistory(List<CompactReservation> reservations, long lastModified, long size,
+                    long standardCents, long weekendCents) {
+            this.hostId = reservations.isEmpty() ? null : reservations.get(0).getHostId();
+            this.lastModified = lastModified;
+            this.size = size;
+            this.standardCents = standardCents;
+            this.weekendCents = weekendCents;
+            //without both rates every night weighs the same
+            boolean priced = standardCents > 0 && weekendCents > 0;
+
+            for (CompactReservation reservation : reservations) {
+                long cents = reservation.getTotalCents() == CompactReservation.NO_TOTAL ? 0 : reservation.getTotalCents();
+                int start = reservation.getStartDay();
+                int nights = reservation.getNights();
+                month(start).addReservation(isWeekend(start));
+                if (nights == 0) {
+                    month(start).addNight(isWeekend(start), 0, cents);
+                    continue;
+                }
+
+                //sharing the total by each night's rate, the first nights taking any leftover cents
+                long[] weights = new long[nights];
+                long totalWeight = 0;
+                for (int i = 0; i < nights; i++) {
+                    weights[i] = !priced ? 1 : isWeekend(start + i) ? weekendCents : standardCents;
+                    totalWeight += weights[i];
+                }
+                long[] shares = new long[nights];
+                long leftover = cents;
+                for (int i = 0; i < nights; i++) {
+                    shares[i] = Math.floorDiv(Math.multiplyExact(cents, weights[i]), totalWeight);
+                    leftover -= shares[i];
+                }
+                for (int i = 0; i < nights; i++) {
+                    int day = start + i;
+                    month(day).addNight(isWeekend(day), 1, shares[i] + (i < leftover ? 1 : 0));
+                }
+            }
+        }
+
+        private MonthTotals month(int epochDay) {
+            return months.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(epochDay)), key -> new MonthTotals());
+        }
+
+        private boolean matches(long lastModified, long size, long standardCents, long weekendCents) {
+            return this.lastModified == lastModified && this.size == size
+                    && this.standardCents == standardCents && this.weekendCents == weekendCents;
+        }
+    }
+
+    /**
+     * Sums of one host's reservations in a month, split into weekday and weekend nights
+     */
+    private static class MonthTotals {
+        private long weekdayReservations;
+        private long weekendReservations;
+        private long weekdayNights;
+        private long weekendNights;
+        private long weekdayCents;
+        private long weekendCents;
+
+        private void addReservation(boolean weekend) {
+            if (weekend) {
+                weekendReservations++;
+            } else {
+                weekdayReservations++;
+            }
+        }
+
+        private void addNight(boolean weekend, int nights, long cents) {
+            if (weekend) {
+                weekendNights += nights;
+                weekendCents += cents;
+            } else {
+                weekdayNights += nights;
+                weekdayCents += cents;
+            }
+        }
+    }
+}
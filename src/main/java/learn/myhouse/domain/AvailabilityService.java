@@ -0,0 +1,264 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.HostRepository;
+import learn.myhouse.data.ReservationChangeListener;
+import learn.myhouse.data.ReservationRepository;
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Class that answers which dates and hosts are free, using a calendar of
+ * occupied days for each host. A host's calendar is read from its
+ * reservations the first time it is needed and then kept current by
+ * listening to the reservation repository. As with new reservations, a
+ * stay from one date to another needs both dates free.
+ *
+ * The repository tells listeners about a change while it still holds the
+ * host's lock, so calendars are never read inside a map operation that a
+ * change would have to wait on. Changes heard while a calendar is being
+ * read are applied once it is loaded, the way ReservationIndex does.
+ */
+public class AvailabilityService implements ReservationChangeListener {
+    private final ReservationRepository reservationRepository;
+    private final HostRepository hostRepository;
+
+    //threads that read missing calendars, each read waits on a file rather than a core
+    private static final int LOAD_THREADS = 4;
+
+    private final Map<String, Slot> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * constructor that accepts the repositories the calendars are read from
+     * @param reservationRepository
+     * @param hostRepository
+     */
+    public AvailabilityService(ReservationRepository reservationRepository, HostRepository hostRepository) {
+        this.reservationRepository = reservationRepository;
+        this.hostRepository = hostRepository;
+    }
+
+    /**
+     * Method that checks whether a host is free from the start date to the
+     * end date, both included
+     * @param hostId
+     * @param start
+     * @param end
+     * @return whether the host is free
+     */
+    public boolean isAvailable(String hostId, LocalDate start, LocalDate end) {
+        return getCalendar(hostId).isFree((int) start.toEpochDay(), (int) end.toEpochDay());
+    }
+
+    /**
+     * Method that finds the first start dates on or after a date where a
+     * host is free for the given number of nights. The stays found do not
+     * share any dates with each other
+     * @param hostId
+     * @param from
+     * @param nights
+     * @param count the number of start dates to find
+     * @return the start dates in order
+     */
+    public List<LocalDate> findFreeWindows(String hostId, LocalDate from, int nights, int count) {
+        if (nights < 0) {
+            throw new IllegalArgumentException("nights must not be negative");
+        }
+
+        HostCalendar calendar = getCalendar(hostId);
+        List<LocalDate> result = new ArrayList<>();
+        //a stay of n nights covers n + 1 dates
+        int days = nights + 1;
+        int day = (int) from.toEpochDay();
+        while (result.size() < count) {
+            int start = calendar.nextFree(day, days);
+            result.add(LocalDate.ofEpochDay(start));
+            day = start + days;
+        }
+        return result;
+    }
+
+    /**
+     * Method that finds every host that is free from the start date to the
+     * end date, both included
+     * @param start
+     * @param end
+     * @return the hosts that are free
+     */
+    public List<Host> findAvailableHosts(LocalDate start, LocalDate end) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+        List<Host> hosts = hostRepository.findAll();
+        loadCalendars(hosts.stream().map(Host::getId).collect(Collectors.toList()));
+
+        List<Host> result = new ArrayList<>();
+        for (Host host : hosts) {
+            if (getCalendar(host.getId()).isFree(startDay, endDay)) {
+                result.add(host);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method that reads the calendars of the given hosts that are not loaded
+     * yet, several at a time on threads of its own so the blocking reads stay
+     * off the common fork join pool. Checking the hosts afterwards only looks
+     * at calendars in memory
+     * @param hostIds
+     */
+    public void loadCalendars(List<String> hostIds) {
+        List<String> missing = hostIds.stream()
+                .filter(hostId -> !calendars.containsKey(hostId))
+                .distinct()
+                .collect(Collectors.toList());
+        if (missing.size() < 2) {
+            missing.forEach(this::getCalendar);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(LOAD_THREADS, missing.size()));
+        try {
+            List<Future<HostCalendar>> loads = new ArrayList<>(missing.size());
+            for (String hostId : missing) {
+                loads.add(executor.submit(() -> getCalendar(hostId)));
+            }
+            for (Future<HostCalendar> load : loads) {
+                load.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            //calendars still missing are read by whoever asks for them next
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method that returns a host's calendar, reading the host's reservations
+     * the first time it is needed
+     * @param hostId
+     * @return the calendar for the host
+     */
+    public HostCalendar getCalendar(String hostId) {
+        Slot slot = calendars.get(hostId);
+        if (slot == null) {
+            Slot created = new Slot();
+            slot = calendars.putIfAbsent(hostId, created);
+            if (slot == null) {
+                //reading only after the slot is in the map, so any change the read misses is queued
+                slot = created;
+                try {
+                    slot.load(reservationRepository.findCompactByHostId(hostId));
+                } catch (RuntimeException ex) {
+                    calendars.remove(hostId, slot);
+                    slot.fail(ex);
+                    throw ex;
+                }
+            }
+        }
+        return slot.await();
+    }
+
+    @Override
+    public void reservationSaved(Reservation reservation) {
+        int id = reservation.getId();
+        int startDay = (int) reservation.getStartDate().toEpochDay();
+        int endDay = (int) reservation.getEndDate().toEpochDay();
+        change(reservation.getHost().getId(), calendar -> calendar.put(id, startDay, endDay));
+    }
+
+    @Override
+    public void reservationDeleted(int id, String hostId) {
+        change(hostId, calendar -> calendar.remove(id));
+    }
+
+    @Override
+    public void hostReplaced(String hostId, List<Reservation> reservations) {
+        List<CompactReservation> compact = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            compact.add(CompactReservation.of(reservation));
+        }
+        change(hostId, calendar -> calendar.replaceAll(compact));
+    }
+
+    /**
+     * Helper method that applies a change to a host's calendar if it has
+     * been read or is being read. Calendars not read yet will see the
+     * change in the host's file
+     * @param hostId
+     * @param change
+     */
+    private void change(String hostId, Consumer<HostCalendar> change) {
+        Slot slot = calendars.get(hostId);
+        if (slot != null) {
+            slot.change(change);
+        }
+    }
+
+    /**
+     * Holds a host's calendar, and the changes heard while it is being read
+     */
+    private static class Slot {
+        private HostCalendar calendar;
+        private RuntimeException failure;
+        private List<Consumer<HostCalendar>> pending = new ArrayList<>();
+
+        private synchronized void load(List<CompactReservation> reservations) {
+            calendar = HostCalendar.of(reservations);
+            for (Consumer<HostCalendar> change : pending) {
+                change.accept(calendar);
+            }
+            pending = null;
+            notifyAll();
+        }
+
+        private synchronized void fail(RuntimeException ex) {
+            failure = ex;
+            notifyAll();
+        }
+
+        private synchronized void change(Consumer<HostCalendar> change) {
+            if (calendar == null) {
+                pending.add(change);
+            } else {
+                change.accept(calendar);
+            }
+        }
+
+        private synchronized HostCalendar await() {
+            boolean interrupted = false;
+            while (calendar == null && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (calendar == null) {
+                throw failure;
+            }
+            return calendar;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package learn.myhouse.domain;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that holds how far a reservation export has got, both while it runs
+ * and once it is done, along with its throughput
+ */
+public class ExportSummary {
+    private final int fileCount;
+    private final int totalFiles;
+    private final long rowCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+
+    ExportSummary(int fileCount, int totalFiles, long rowCount, long byteCount, long elapsedNanos) {
+        this.fileCount = fileCount;
+        this.totalFiles = totalFiles;
+        this.rowCount = rowCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    //host files exported so far
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    //bytes written to the output file, after compression
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(rowCount);
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(byteCount);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("files=%s/%s rows=%s bytes=%s elapsed=%sms rows/s=%.0f MB/s=%.1f",
+                fileCount, totalFiles, rowCount, byteCount, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                getRowsPerSecond(), getBytesPerSecond() / (1024 * 1024));
+    }
+}
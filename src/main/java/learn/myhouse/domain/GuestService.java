@@ -4,11 +4,9 @@ import learn.myhouse.data.GuestRepository;
 import learn.myhouse.data.HostRepository;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
-import org.springframework.stereotype.Service;
 
 import java.util.List;
 
-@Service
 public class GuestService {
     private final GuestRepository repository;
 
@@ -0,0 +1,224 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.CompactReservation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that keeps the occupied days of a single host as a bitset indexed
+ * by epoch day, one bit per day, so free date checks and searches work on
+ * 64 days at a time. A stay occupies its start and end dates and every day
+ * between them, matching the overlap rule of ReservationService. Days
+ * outside the stored words are free.
+ */
+public class HostCalendar {
+    private long[] words = new long[0];
+    private int base; //epoch day of the lowest bit of words[0], a multiple of 64
+
+    //first and last day of each stay by reservation ID, to clear a stay that changes
+    private final Map<Integer, int[]> stays = new HashMap<>();
+
+    /**
+     * Method that builds a calendar from a host's reservations
+     * @param reservations
+     * @return the calendar with every stay marked
+     */
+    public static HostCalendar of(List<CompactReservation> reservations) {
+        HostCalendar result = new HostCalendar();
+        result.replaceAll(reservations);
+        return result;
+    }
+
+    /**
+     * Method that replaces every stay in the calendar
+     * @param reservations
+     */
+    public synchronized void replaceAll(List<CompactReservation> reservations) {
+        words = new long[0];
+        stays.clear();
+        for (CompactReservation reservation : reservations) {
+            put(reservation.getId(), reservation.getStartDay(), reservation.getEndDay());
+        }
+    }
+
+    /**
+     * Method that marks a stay's days as occupied, replacing the stay with
+     * the same ID if there is one
+     * @param id
+     * @param startDay
+     * @param endDay
+     */
+    public synchronized void put(int id, int startDay, int endDay) {
+        remove(id);
+        if (endDay < startDay) {
+            return;
+        }
+        stays.put(id, new int[]{startDay, endDay});
+        grow(startDay, endDay);
+        fill(startDay, endDay, true);
+    }
+
+    /**
+     * Method that frees the days of the stay with the given ID. Days that
+     * another stay also covers stay occupied
+     * @param id
+     * @return whether a stay was removed
+     */
+    public synchronized boolean remove(int id) {
+        int[] stay = stays.remove(id);
+        if (stay == null) {
+            return false;
+        }
+        fill(stay[0], stay[1], false);
+        //stays in the files are not guaranteed to be apart, so marking back any that shared days
+        for (int[] other : stays.values()) {
+            if (other[0] <= stay[1] && other[1] >= stay[0]) {
+                fill(Math.max(other[0], stay[0]), Math.min(other[1], stay[1]), true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that checks whether every day from the start day to the end
+     * day, both included, is free
+     * @param startDay
+     * @param endDay
+     * @return whether the days are free
+     */
+    public synchronized boolean isFree(int startDay, int endDay) {
+        return nextOccupied(startDay) > endDay;
+    }
+
+    /**
+     * Method that finds the first day on or after the given one that starts
+     * a run of free days of the given length
+     * @param fromDay
+     * @param days
+     * @return the first day of the run
+     */
+    public synchronized int nextFree(int fromDay, int days) {
+        int start = fromDay;
+        while (true) {
+            int occupied = nextOccupied(start);
+            if ((long) occupied - start >= days) {
+                return start;
+            }
+            start = nextUnoccupied(occupied);
+        }
+    }
+
+    /**
+     * Method that returns the number of occupied days
+     * @return the occupied day count
+     */
+    public synchronized int getOccupiedDays() {
+        int result = 0;
+        for (long word : words) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+    /**
+     * Helper method that finds the first occupied day on or after the given one
+     * @param day
+     * @return the occupied day, or Integer.MAX_VALUE if every later day is free
+     */
+    private int nextOccupied(int day) {
+        long index = Math.max((long) day - base, 0);
+        if (index >= (long) words.length << 6) {
+            return Integer.MAX_VALUE;
+        }
+        int w = (int) (index >>> 6);
+        long word = words[w] & (-1L << (index & 63));
+        while (true) {
+            if (word != 0) {
+                return base + (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return Integer.MAX_VALUE;
+            }
+            word = words[w];
+        }
+    }
+
+    /**
+     * Helper method that finds the first free day on or after the given one
+     * @param day
+     * @return the free day
+     */
+    private int nextUnoccupied(int day) {
+        long index = (long) day - base;
+        if (index < 0 || index >= (long) words.length << 6) {
+            return day;
+        }
+        int w = (int) (index >>> 6);
+        long word = ~words[w] & (-1L << (index & 63));
+        while (true) {
+            if (word != 0) {
+                return base + (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return base + (w << 6);
+            }
+            word = ~words[w];
+        }
+    }
+
+    /**
+     * Helper method that sets or clears the bits from the start day to the
+     * end day, both included, which must lie within the stored words
+     * @param startDay
+     * @param endDay
+     * @param occupied
+     */
+    private void fill(int startDay, int endDay, boolean occupied) {
+        int from = startDay - base;
+        int to = endDay - base;
+        int first = from >>> 6;
+        int last = to >>> 6;
+        long firstMask = -1L << (from & 63);
+        long lastMask = -1L >>> (63 - (to & 63));
+
+        if (first == last) {
+            apply(first, firstMask & lastMask, occupied);
+            return;
+        }
+        apply(first, firstMask, occupied);
+        for (int w = first + 1; w < last; w++) {
+            words[w] = occupied ? -1L : 0L;
+        }
+        apply(last, lastMask, occupied);
+    }
+
+    private void apply(int w, long mask, boolean occupied) {
+        words[w] = occupied ? words[w] | mask : words[w] & ~mask;
+    }
+
+    /**
+     * Helper method that widens the stored words to cover the given days
+     * @param startDay
+     * @param endDay
+     */
+    private void grow(int startDay, int endDay) {
+        int newBase = Math.floorDiv(startDay, 64) * 64;
+        int newEnd = (Math.floorDiv(endDay, 64) + 1) * 64;
+        if (words.length > 0) {
+            newBase = Math.min(newBase, base);
+            newEnd = Math.max(newEnd, base + (words.length << 6));
+        } else {
+            base = newBase;
+        }
+        if (newBase == base && newEnd == base + (words.length << 6)) {
+            return;
+        }
+
+        long[] grown = new long[(newEnd - newBase) >>> 6];
+        System.arraycopy(words, 0, grown, (base - newBase) >>> 6, words.length);
+        words = grown;
+        base = newBase;
+    }
+}
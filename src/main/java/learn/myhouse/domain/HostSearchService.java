@@ -0,0 +1,175 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.HostRepository;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.HostQuote;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Class that searches every host for a stay, optionally narrowed to a
+ * state, city or postal code, and returns the hosts that are free ranked
+ * by what the stay would cost. Hosts are looked up by location through an
+ * inverted index from each location value to the hosts with it. Calendars
+ * not read yet are loaded by the availability service on threads of its
+ * own, then the candidates are checked against them in memory.
+ */
+public class HostSearchService {
+    private final HostRepository hostRepository;
+    private final AvailabilityService availabilityService;
+    private final PricingEngine pricingEngine;
+
+    //rebuilt whenever the host repository returns different hosts
+    private volatile LocationIndex index = new LocationIndex(List.of());
+
+    /**
+     * constructor that accepts the hosts to search, their calendars and
+     * the pricing engine used to rank them
+     * @param hostRepository
+     * @param availabilityService
+     * @param pricingEngine
+     */
+    public HostSearchService(HostRepository hostRepository, AvailabilityService availabilityService,
+                             PricingEngine pricingEngine) {
+        this.hostRepository = hostRepository;
+        this.availabilityService = availabilityService;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Method that finds the hosts free from the start date to the end date
+     * in the given location. Blank or null location values match any host
+     * @param start
+     * @param end
+     * @param state
+     * @param city
+     * @param postCode
+     * @return the result holding the free hosts, cheapest first
+     */
+    public Result<List<HostQuote>> search(LocalDate start, LocalDate end, String state, String city,
+                                          String postCode) {
+        Result<List<HostQuote>> result = new Result<>();
+        if (start == null || end == null) {
+            result.addErrorMessage("start and end dates are required");
+            return result;
+        }
+        if (!start.isBefore(end)) {
+            result.addErrorMessage("start date must be before end date");
+            return result;
+        }
+        if (!start.isAfter(LocalDate.now())) {
+            result.addErrorMessage("start date must be in the future");
+            return result;
+        }
+
+        List<Host> candidates = currentIndex().find(state, city, postCode);
+        availabilityService.loadCalendars(candidates.stream().map(Host::getId).collect(Collectors.toList()));
+        List<HostQuote> quotes = candidates.stream()
+                .filter(host -> availabilityService.isAvailable(host.getId(), start, end))
+                .map(host -> new HostQuote(host, pricingEngine.getTotal(start, end, host)))
+                .sorted(Comparator.comparing(HostQuote::getTotal)
+                        .thenComparing(quote -> quote.getHost().getLastName(),
+                                Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+        result.setPayload(quotes);
+        return result;
+    }
+
+    /**
+     * Helper method that returns the location index, rebuilding it if the
+     * repository has read its hosts again since it was built. The repository
+     * hands back the same Host objects until then, so comparing references is enough
+     * @return the location index for the current hosts
+     */
+    private LocationIndex currentIndex() {
+        List<Host> hosts = hostRepository.findAll();
+        LocationIndex current = index;
+        if (!current.isFor(hosts)) {
+            current = new LocationIndex(hosts);
+            index = current;
+        }
+        return current;
+    }
+
+    /**
+     * Lists of hosts by state, city and postal code, compared ignoring case
+     */
+    private static class LocationIndex {
+        private final List<Host> hosts;
+        private final Map<String, List<Host>> byState = new HashMap<>();
+        private final Map<String, List<Host>> byCity = new HashMap<>();
+        private final Map<String, List<Host>> byPostCode = new HashMap<>();
+
+        private LocationIndex(List<Host> hosts) {
+            this.hosts = hosts;
+            for (Host host : hosts) {
+                add(byState, host.getState(), host);
+                add(byCity, host.getCity(), host);
+                add(byPostCode, host.getPostCode(), host);
+            }
+        }
+
+        private boolean isFor(List<Host> current) {
+            if (current.size() != hosts.size()) {
+                return false;
+            }
+            for (int i = 0; i < current.size(); i++) {
+                if (current.get(i) != hosts.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Method that intersects the hosts of each location value given,
+         * starting from the shortest list
+         */
+        private List<Host> find(String state, String city, String postCode) {
+            List<List<Host>> lists = new ArrayList<>();
+            for (List<Host> list : Arrays.asList(lookup(byState, state), lookup(byCity, city), lookup(byPostCode, postCode))) {
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            if (lists.isEmpty()) {
+                return hosts;
+            }
+
+            lists.sort(Comparator.comparingInt(List::size));
+            List<Host> result = lists.get(0);
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                Set<Host> other = Set.copyOf(lists.get(i));
+                result = result.stream().filter(other::contains).collect(Collectors.toList());
+            }
+            return result;
+        }
+
+        private static void add(Map<String, List<Host>> index, String value, Host host) {
+            if (value != null && !value.isBlank()) {
+                index.computeIfAbsent(normalize(value), v -> new ArrayList<>()).add(host);
+            }
+        }
+
+        //a null list means the value was not given and any host matches
+        private static List<Host> lookup(Map<String, List<Host>> index, String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            return index.getOrDefault(normalize(value), List.of());
+        }
+
+        private static String normalize(String value) {
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -2,11 +2,9 @@ package learn.myhouse.domain;
 
 import learn.myhouse.data.HostRepository;
 import learn.myhouse.model.Host;
-import org.springframework.stereotype.Service;
 
 import java.util.List;
 
-@Service
 public class HostService {
     private final HostRepository repository;
 
@@ -0,0 +1,47 @@
+package learn.myhouse.domain;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that holds the counts of a bulk reservation import and how long it took
+ */
+public class ImportSummary {
+    private final int rowCount;
+    private final int acceptedCount;
+    private final int hostCount;
+    private final long elapsedNanos;
+
+    ImportSummary(int rowCount, int acceptedCount, int hostCount, long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.acceptedCount = acceptedCount;
+        this.hostCount = hostCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public int getRejectedCount() {
+        return rowCount - acceptedCount;
+    }
+
+    //hosts that had at least one row accepted, each written once
+    public int getHostCount() {
+        return hostCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s rows read, %s accepted for %s hosts, %s rejected in %s ms",
+                rowCount, acceptedCount, hostCount, getRejectedCount(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+}
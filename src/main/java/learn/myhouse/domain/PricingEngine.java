@@ -0,0 +1,67 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.Host;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public class PricingEngine {
+
+    /**
+     * Method that accepts a start date, end date, a host and calculates the reservation
+     * total based on the length of stay, the day of the weeks and the rates of the host.
+     * Friday and Saturday nights are charged the weekend rate
+     * @param startDate
+     * @param endDate
+     * @param host
+     * @return the total based on dates and rates
+     */
+    public BigDecimal getTotal(LocalDate startDate, LocalDate endDate, Host host){
+        //counting the number of nights between start and end dates
+        long nights = Math.max(0, ChronoUnit.DAYS.between(startDate, endDate));
+        long weekendNights = countWeekendNights(startDate, nights);
+
+        //multiplying the nights with their corresponding rate and adding the two sums
+        return BigDecimal.valueOf(nights - weekendNights).multiply(host.getStandardRate())
+                .add(BigDecimal.valueOf(weekendNights).multiply(host.getWeekendRate()));
+    }
+
+    /**
+     * Method that counts the Friday and Saturday nights in a stay without
+     * visiting each night
+     * @param startDate
+     * @param nights
+     * @return the number of weekend nights
+     */
+    public long countWeekendNights(LocalDate startDate, long nights){
+        if(nights <= 0){
+            return 0;
+        }
+
+        //every full week holds exactly one Friday and one Saturday
+        long result = (nights / 7) * 2;
+
+        /*the remaining nights start on the same day of the week as the stay, so they cover
+        the days fromFriday to fromFriday + remainder - 1, counting Friday as day 0. Friday
+        and Saturday are days 0 and 1, or days 7 and 8 once the range wraps into the next week*/
+        int fromFriday = Math.floorMod(startDate.getDayOfWeek().getValue() - DayOfWeek.FRIDAY.getValue(), 7);
+        int remainder = (int) (nights % 7);
+        result += overlap(fromFriday, fromFriday + remainder, 0, 2);
+        result += overlap(fromFriday, fromFriday + remainder, 7, 9);
+        return result;
+    }
+
+    /**
+     * Helper method that returns the length of the overlap of two half open ranges
+     * @param start
+     * @param end
+     * @param otherStart
+     * @param otherEnd
+     * @return the number of values in both ranges
+     */
+    private static int overlap(int start, int end, int otherStart, int otherEnd){
+        return Math.max(0, Math.min(end, otherEnd) - Math.max(start, otherStart));
+    }
+}
@@ -0,0 +1,249 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.GuestRepository;
+import learn.myhouse.data.HostRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class that writes every reservation with its host and guest to a single
+ * file, as CSV or, when the name ends with .jsonl, as one JSON object per
+ * line. A name that also ends with .gz is compressed.
+ *
+ * Hosts and guests are read once into maps before the export starts, then
+ * each host file is read in turn and its rows written straight out, so
+ * memory stays the size of the largest host file however many
+ * reservations there are.
+ */
+public class ReservationExporter {
+    static final String[] COLUMNS = {"reservation_id", "host_id", "host_last_name", "host_email", "host_city",
+            "host_state", "host_postal_code", "guest_id", "guest_first_name", "guest_last_name", "guest_email",
+            "guest_state", "start_date", "end_date", "nights", "total"};
+
+    //how often progress is reported while exporting
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReservationFileRepository reservationRepository;
+    private final HostRepository hostRepository;
+    private final GuestRepository guestRepository;
+
+    /**
+     * constructor that accepts the repositories reservations are read and joined from
+     * @param reservationRepository
+     * @param hostRepository
+     * @param guestRepository
+     */
+    public ReservationExporter(ReservationFileRepository reservationRepository, HostRepository hostRepository,
+                               GuestRepository guestRepository) {
+        this.reservationRepository = reservationRepository;
+        this.hostRepository = hostRepository;
+        this.guestRepository = guestRepository;
+    }
+
+    /**
+     * Method that exports every reservation to a file
+     * @param outputPath
+     * @return the counts and throughput of the export
+     * @throws DataException
+     */
+    public ExportSummary export(String outputPath) throws DataException {
+        return export(outputPath, progress -> { });
+    }
+
+    /**
+     * Method that exports every reservation to a file, reporting progress
+     * about once a second while it runs
+     * @param outputPath
+     * @param progress told how far the export has got
+     * @return the counts and throughput of the export
+     * @throws DataException
+     */
+    public ExportSummary export(String outputPath, Consumer<ExportSummary> progress) throws DataException {
+        long started = System.nanoTime();
+        boolean json = outputPath.endsWith(".jsonl") || outputPath.endsWith(".jsonl.gz");
+
+        Map<String, Host> hosts = new HashMap<>();
+        for (Host host : hostRepository.findAll()) {
+            hosts.put(host.getId(), host);
+        }
+        Map<Integer, Guest> guests = new HashMap<>();
+        for (Guest guest : guestRepository.findAll()) {
+            guests.put(guest.getId(), guest);
+        }
+        List<String> hostIds = reservationRepository.findHostIds();
+
+        CountingOutputStream counter = null;
+        int files = 0;
+        long rows = 0;
+        try {
+            counter = new CountingOutputStream(Files.newOutputStream(Paths.get(outputPath)));
+            OutputStream output = outputPath.endsWith(".gz") ? new GZIPOutputStream(counter, BUFFER_SIZE) : counter;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                if (!json) {
+                    writer.write(String.join(",", COLUMNS));
+                    writer.write('\n');
+                }
+
+                long reported = started;
+                StringBuilder line = new StringBuilder(256);
+                for (String hostId : hostIds) {
+                    Host host = hosts.get(hostId);
+                    for (CompactReservation reservation : reservationRepository.findCompactByHostId(hostId)) {
+                        line.setLength(0);
+                        Object[] values = values(reservation, host, guests.get(reservation.getGuestId()));
+                        if (json) {
+                            appendJson(line, values);
+                        } else {
+                            appendCsv(line, values);
+                        }
+                        writer.append(line);
+                        rows++;
+                    }
+                    files++;
+
+                    long now = System.nanoTime();
+                    if (now - reported >= PROGRESS_INTERVAL) {
+                        reported = now;
+                        progress.accept(new ExportSummary(files, hostIds.size(), rows, counter.count, now - started));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+        return new ExportSummary(files, hostIds.size(), rows, counter.count, System.nanoTime() - started);
+    }
+
+    /**
+     * Helper method that lines up a row's values with COLUMNS. A host or
+     * guest that cannot be found leaves its columns empty
+     * @param reservation
+     * @param host
+     * @param guest
+     * @return the values, strings or numbers, null where there is no value
+     */
+    private static Object[] values(CompactReservation reservation, Host host, Guest guest) {
+        BigDecimal total = reservation.getTotal();
+        return new Object[]{
+                reservation.getId(),
+                reservation.getHostId(),
+                host == null ? null : host.getLastName(),
+                host == null ? null : host.getEmail(),
+                host == null ? null : host.getCity(),
+                host == null ? null : host.getState(),
+                host == null ? null : host.getPostCode(),
+                reservation.getGuestId(),
+                guest == null ? null : guest.getFirstName(),
+                guest == null ? null : guest.getLastName(),
+                guest == null ? null : guest.getEmail(),
+                guest == null ? null : guest.getState(),
+                reservation.getStartDate().toString(),
+                reservation.getEndDate().toString(),
+                reservation.getNights(),
+                total == null ? null : total.toPlainString()
+        };
+    }
+
+    private static void appendCsv(StringBuilder line, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                line.append(text);
+            } else {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            }
+        }
+        line.append('\n');
+    }
+
+    private static void appendJson(StringBuilder line, Object[] values) {
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('"').append(COLUMNS[i]).append("\":");
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Integer || i == values.length - 1) {
+                line.append(value); //ids, nights and the total are numbers
+            } else {
+                appendJsonString(line, value.toString());
+            }
+        }
+        line.append("}\n");
+    }
+
+    private static void appendJsonString(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Counts the bytes that reach the output file
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.CsvReader;
+import learn.myhouse.data.DataException;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that adds reservations in bulk from a file instead of one prompt at
+ * a time. Rows hold a guest email, host email, start date and end date,
+ * either as CSV with the header guest_email,host_email,start_date,end_date
+ * or as one JSON object per line with the same names.
+ *
+ * CSV columns are matched to those names through the header, so they can
+ * come in any order, and a file without them is refused rather than read.
+ *
+ * Rows are looked up and priced in parallel, then grouped by host in file
+ * order and handed to ReservationService.addAll, so each row is checked
+ * against the rows before it and each host's accepted rows are written at
+ * once. Hosts are written a few at a time on threads of the importer's own,
+ * since each write waits on its file. Rows that are not added are written
+ * to a rejects file with the reasons.
+ */
+public class ReservationImporter {
+    static final String[] FIELDS = {"guest_email", "host_email", "start_date", "end_date"};
+    //threads that write hosts' rows, each write blocks on its file rather than using a core
+    private static final int WRITE_THREADS = 4;
+
+    private final ReservationService reservationService;
+    private final HostService hostService;
+    private final GuestService guestService;
+    private final PricingEngine pricingEngine;
+
+    /**
+     * constructor that accepts the services rows are looked up, priced and added with
+     * @param reservationService
+     * @param hostService
+     * @param guestService
+     * @param pricingEngine
+     */
+    public ReservationImporter(ReservationService reservationService, HostService hostService,
+                               GuestService guestService, PricingEngine pricingEngine) {
+        this.reservationService = reservationService;
+        this.hostService = hostService;
+        this.guestService = guestService;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Method that imports every row of a file, as JSON lines when the name
+     * ends with .jsonl and as CSV otherwise
+     * @param inputPath
+     * @param rejectsPath where rows that were not added are written as CSV
+     * @return the counts of the import
+     * @throws DataException
+     */
+    public ImportSummary importFile(String inputPath, String rejectsPath) throws DataException {
+        long started = System.nanoTime();
+        List<Row> rows = inputPath.endsWith(".jsonl") ? readJsonLines(inputPath) : readCsv(inputPath);
+
+        //looking up guests and hosts and pricing each row
+        rows.parallelStream().forEach(this::prepare);
+
+        //grouping in file order so each host sees its rows in the order they were written
+        Map<String, List<Row>> byHost = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (row.reservation != null) {
+                byHost.computeIfAbsent(row.reservation.getHost().getId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        addAll(byHost);
+
+        int accepted = 0;
+        int hosts = 0;
+        for (List<Row> hostRows : byHost.values()) {
+            int hostAccepted = (int) hostRows.stream().filter(row -> row.errors.isEmpty()).count();
+            accepted += hostAccepted;
+            hosts += hostAccepted > 0 ? 1 : 0;
+        }
+        writeRejects(rows, rejectsPath);
+        return new ImportSummary(rows.size(), accepted, hosts, System.nanoTime() - started);
+    }
+
+    /**
+     * Helper method that checks a row's fields and creates its priced Reservation
+     * @param row
+     */
+    private void prepare(Row row) {
+        if (!row.errors.isEmpty()) {
+            return; //not read as four fields
+        }
+
+        LocalDate start = parseDate(row, 2, "start date");
+        LocalDate end = parseDate(row, 3, "end date");
+        Guest guest = guestService.findByEmail(row.fields[0]);
+        if (guest == null) {
+            row.errors.add("guest cannot be found");
+        }
+        Host host = hostService.findByEmail(row.fields[1]);
+        if (host == null) {
+            row.errors.add("host cannot be found");
+        }
+
+        if (row.errors.isEmpty()) {
+            row.reservation = new Reservation(start, end, guest, host, pricingEngine.getTotal(start, end, host));
+        }
+    }
+
+    /**
+     * Helper method that adds each host's rows on a small pool of threads
+     * that is shut down afterwards, keeping the file writes off the common
+     * fork join pool
+     * @param byHost
+     * @throws DataException
+     */
+    private void addAll(Map<String, List<Row>> byHost) throws DataException {
+        if (byHost.size() < 2) {
+            byHost.forEach(this::add);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(WRITE_THREADS, byHost.size()));
+        try {
+            List<Future<?>> writes = new ArrayList<>(byHost.size());
+            for (Map.Entry<String, List<Row>> host : byHost.entrySet()) {
+                writes.add(executor.submit(() -> add(host.getKey(), host.getValue())));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataException("import was interrupted", ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Helper method that adds a host's rows, recording the errors of the
+     * ones that are not added
+     * @param hostId
+     * @param rows
+     */
+    private void add(String hostId, List<Row> rows) {
+        List<Reservation> reservations = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            reservations.add(row.reservation);
+        }
+
+        try {
+            List<Result<Reservation>> results = reservationService.addAll(hostId, reservations);
+            for (int i = 0; i < rows.size(); i++) {
+                rows.get(i).errors.addAll(results.get(i).getErrorMessages());
+            }
+        } catch (DataException ex) {
+            //the other hosts are still imported
+            for (Row row : rows) {
+                row.errors.add("reservation could not be saved: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static LocalDate parseDate(Row row, int index, String name) {
+        try {
+            return LocalDate.parse(row.fields[index]);
+        } catch (DateTimeParseException ex) {
+            row.errors.add(name + " must be a date in yyyy-MM-dd format");
+            return null;
+        }
+    }
+
+    private static List<Row> readCsv(String inputPath) throws DataException {
+        List<Row> rows = new ArrayList<>();
+        try (CsvReader reader = CsvReader.open(inputPath)) {
+            if (!reader.next()) {
+                throw new DataException("CSV file is empty, expected the header " + String.join(",", FIELDS));
+            }
+            int width = reader.getFieldCount();
+            int[] columns = findColumns(reader);
+
+            while (reader.next()) {
+                String[] fields = new String[FIELDS.length];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = columns[i] < reader.getFieldCount() ? reader.getString(columns[i]).trim() : "";
+                }
+                Row row = new Row(rows.size() + 1, fields);
+                if (reader.getFieldCount() != width) {
+                    row.errors.add("row must have " + width + " fields");
+                }
+                rows.add(row);
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+        return rows;
+    }
+
+    /**
+     * Helper method that finds the column of each field in the CSV header,
+     * ignoring case and surrounding spaces
+     * @param header the reader positioned on the header
+     * @return the column index of each of FIELDS, in order
+     * @throws DataException if the header does not name every field
+     */
+    private static int[] findColumns(CsvReader header) throws DataException {
+        Map<String, Integer> names = new HashMap<>();
+        for (int i = 0; i < header.getFieldCount(); i++) {
+            names.putIfAbsent(header.getString(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] columns = new int[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            Integer column = names.get(FIELDS[i]);
+            if (column == null) {
+                throw new DataException("CSV header must name the columns " + String.join(",", FIELDS)
+                        + ", " + FIELDS[i] + " is missing");
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+
+    private static List<Row> readJsonLines(String inputPath) throws DataException {
+        List<Row> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(inputPath), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, String> object = parseObject(line);
+                if (object == null) {
+                    Row row = new Row(rows.size() + 1, new String[]{line});
+                    row.errors.clear();
+                    row.errors.add("row must be a JSON object of strings");
+                    rows.add(row);
+                    continue;
+                }
+                String[] fields = new String[FIELDS.length];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = object.getOrDefault(FIELDS[i], "").trim();
+                }
+                rows.add(new Row(rows.size() + 1, fields));
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+        return rows;
+    }
+
+    /**
+     * Helper method that parses a flat JSON object whose values are strings
+     * @param text
+     * @return the names and values, or null if the text is not such an object
+     */
+    static Map<String, String> parseObject(String text) {
+        Map<String, String> result = new HashMap<>();
+        int[] position = {skipSpace(text, 0)};
+        if (!consume(text, position, '{')) {
+            return null;
+        }
+        if (consume(text, position, '}')) {
+            return position[0] == text.length() ? result : null;
+        }
+        do {
+            String name = parseString(text, position);
+            if (name == null || !consume(text, position, ':')) {
+                return null;
+            }
+            String value = parseString(text, position);
+            if (value == null) {
+                return null;
+            }
+            result.put(name, value);
+        } while (consume(text, position, ','));
+        return consume(text, position, '}') && position[0] == text.length() ? result : null;
+    }
+
+    private static boolean consume(String text, int[] position, char expected) {
+        if (position[0] < text.length() && text.charAt(position[0]) == expected) {
+            position[0] = skipSpace(text, position[0] + 1);
+            return true;
+        }
+        return false;
+    }
+
+    private static String parseString(String text, int[] position) {
+        int i = position[0];
+        if (i >= text.length() || text.charAt(i) != '"') {
+            return null;
+        }
+        StringBuilder result = new StringBuilder();
+        for (i++; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                position[0] = skipSpace(text, i + 1);
+                return result.toString();
+            }
+            if (c == '\\') {
+                if (++i >= text.length()) {
+                    return null;
+                }
+                char escaped = text.charAt(i);
+                switch (escaped) {
+                    case 'n': result.append('\n'); break;
+                    case 't': result.append('\t'); break;
+                    case 'r': result.append('\r'); break;
+                    case 'b': result.append('\b'); break;
+                    case 'f': result.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= text.length()) {
+                            return null;
+                        }
+                        try {
+                            result.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException ex) {
+                            return null;
+                        }
+                        i += 4;
+                        break;
+                    default: result.append(escaped); //quote, backslash and slash
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return null;
+    }
+
+    private static int skipSpace(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Helper method that writes the rows that were not added, with their
+     * row number and the reasons joined by semicolons
+     * @param rows
+     * @param rejectsPath
+     * @throws DataException
+     */
+    private static void writeRejects(List<Row> rows, String rejectsPath) throws DataException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(rejectsPath), StandardCharsets.UTF_8)) {
+            writer.write("row," + String.join(",", FIELDS) + ",errors");
+            writer.newLine();
+            for (Row row : rows) {
+                if (row.errors.isEmpty()) {
+                    continue;
+                }
+                StringBuilder line = new StringBuilder().append(row.number);
+                for (int i = 0; i < FIELDS.length; i++) {
+                    line.append(',').append(escape(i < row.fields.length ? row.fields[i] : ""));
+                }
+                line.append(',').append(escape(String.join("; ", row.errors)));
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex);
+        }
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A row of the input file and what became of it
+     */
+    private static class Row {
+        private final int number;
+        private final String[] fields;
+        private final List<String> errors = new ArrayList<>();
+        private Reservation reservation;
+
+        private Row(int number, String[] fields) {
+            this.number = number;
+            this.fields = fields;
+            if (fields.length != FIELDS.length) {
+                errors.add("row must have " + FIELDS.length + " fields");
+            }
+        }
+    }
+}
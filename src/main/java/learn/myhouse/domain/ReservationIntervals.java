@@ -0,0 +1,206 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Class that indexes the stays of a single host as epoch-day intervals sorted
+ * by start date. A running maximum of the end dates lets an overlap query stop
+ * as soon as no earlier stay can reach the requested start date.
+ */
+public class ReservationIntervals {
+    private int[] starts;
+    private int[] ends;
+    private int[] ids;
+    private int[] maxEnds; //highest end date among the intervals up to and including each index
+    private int size;
+
+    /**
+     * constructor that creates an empty index with room for the given
+     * number of stays
+     * @param capacity
+     */
+    public ReservationIntervals(int capacity) {
+        starts = new int[Math.max(capacity, 4)];
+        ends = new int[starts.length];
+        ids = new int[starts.length];
+        maxEnds = new int[starts.length];
+    }
+
+    /**
+     * Method that builds an index from a list of reservations
+     * @param reservations
+     * @return the index holding every reservation in the list
+     */
+    public static ReservationIntervals of(List<Reservation> reservations) {
+        ReservationIntervals result = new ReservationIntervals(reservations.size());
+
+        //sorting once, since inserting each stay at its position would be quadratic
+        List<Reservation> sorted = new ArrayList<>(reservations);
+        sorted.sort(Comparator.comparing(Reservation::getStartDate));
+        for (Reservation reservation : sorted) {
+            result.starts[result.size] = (int) reservation.getStartDate().toEpochDay();
+            result.ends[result.size] = (int) reservation.getEndDate().toEpochDay();
+            result.ids[result.size] = reservation.getId();
+            result.size++;
+        }
+        result.updateMaxEnds(0);
+        return result;
+    }
+
+    /**
+     * Method that builds an index from a list of compact reservations
+     * @param reservations
+     * @return the index holding every reservation in the list
+     */
+    public static ReservationIntervals ofCompact(List<CompactReservation> reservations) {
+        ReservationIntervals result = new ReservationIntervals(reservations.size());
+
+        //sorting once, since inserting each stay at its position would be quadratic
+        List<CompactReservation> sorted = new ArrayList<>(reservations);
+        sorted.sort(Comparator.comparingInt(CompactReservation::getStartDay));
+        for (CompactReservation reservation : sorted) {
+            result.starts[result.size] = reservation.getStartDay();
+            result.ends[result.size] = reservation.getEndDay();
+            result.ids[result.size] = reservation.getId();
+            result.size++;
+        }
+        result.updateMaxEnds(0);
+        return result;
+    }
+
+    /**
+     * Method that checks whether the given dates overlap any stay in the index.
+     * Stays that end on the start date or begin on the end date count as overlapping
+     * @param start
+     * @param end
+     * @return whether an overlapping stay exists
+     */
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        return overlaps(start, end, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Method that checks whether the given dates overlap any stay in the index
+     * other than the one with the excluded ID
+     * @param start
+     * @param end
+     * @param excludedId
+     * @return whether an overlapping stay exists
+     */
+    public synchronized boolean overlaps(LocalDate start, LocalDate end, int excludedId) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+
+        //walking back from the last stay that starts on or before the end date
+        for (int i = upperBound(endDay) - 1; i >= 0 && maxEnds[i] >= startDay; i--) {
+            if (ends[i] >= startDay && ids[i] != excludedId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method that adds a reservation to the index, replacing the stay
+     * with the same ID if there is one
+     * @param reservation
+     */
+    public synchronized void put(Reservation reservation) {
+        remove(reservation.getId());
+        insert(reservation.getId(),
+                (int) reservation.getStartDate().toEpochDay(),
+                (int) reservation.getEndDate().toEpochDay());
+    }
+
+    /**
+     * Method that removes the stay with the given ID from the index
+     * @param id
+     * @return whether a stay was removed
+     */
+    public synchronized boolean remove(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                int moved = size - i - 1;
+                System.arraycopy(starts, i + 1, starts, i, moved);
+                System.arraycopy(ends, i + 1, ends, i, moved);
+                System.arraycopy(ids, i + 1, ids, i, moved);
+                size--;
+                updateMaxEnds(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Helper method that inserts an interval at its sorted position without
+     * replacing one with the same ID. Callers other than put keep the index
+     * to a single thread
+     * @param id
+     * @param start
+     * @param end
+     */
+    void insert(int id, int start, int end) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            maxEnds = Arrays.copyOf(maxEnds, capacity);
+        }
+
+        int position = upperBound(start);
+        int moved = size - position;
+        System.arraycopy(starts, position, starts, position + 1, moved);
+        System.arraycopy(ends, position, ends, position + 1, moved);
+        System.arraycopy(ids, position, ids, position + 1, moved);
+        starts[position] = start;
+        ends[position] = end;
+        ids[position] = id;
+        size++;
+        updateMaxEnds(position);
+    }
+
+    /**
+     * Helper method that recalculates the running maximum of the end dates
+     * from the given index onwards
+     * @param from
+     */
+    private void updateMaxEnds(int from) {
+        int max = from == 0 ? Integer.MIN_VALUE : maxEnds[from - 1];
+        for (int i = from; i < size; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    /**
+     * Helper method that binary searches for the first stay starting after a day
+     * @param day
+     * @return the index of the first stay with a start date after the day
+     */
+    private int upperBound(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,93 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.GuestRepository;
+import learn.myhouse.data.HostRepository;
+import learn.myhouse.data.ReservationIndex;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Class that finds reservations across every host, by guest or by the
+ * dates they cover, through the cross-host reservation index rather than
+ * by opening each host's file. The reservations found carry their full
+ * host and guest.
+ */
+public class ReservationSearchService {
+    private final ReservationIndex index;
+    private final HostRepository hostRepository;
+    private final GuestRepository guestRepository;
+
+    /**
+     * constructor that accepts the index to search and the repositories
+     * the hosts and guests are looked up in
+     * @param index
+     * @param hostRepository
+     * @param guestRepository
+     */
+    public ReservationSearchService(ReservationIndex index, HostRepository hostRepository,
+                                    GuestRepository guestRepository) {
+        this.index = index;
+        this.hostRepository = hostRepository;
+        this.guestRepository = guestRepository;
+    }
+
+    /**
+     * Method that finds every reservation a guest holds with any host
+     * @param guest
+     * @return the reservations ordered by start date
+     */
+    public List<Reservation> findByGuest(Guest guest) {
+        List<Reservation> result = index.findByGuestId(guest.getId());
+        for (Reservation reservation : result) {
+            reservation.setGuest(guest);
+            join(reservation);
+        }
+        return result;
+    }
+
+    /**
+     * Method that finds every reservation with any host that has at least
+     * one day in common with the range, the first and last days included
+     * @param start
+     * @param end
+     * @return the result holding the reservations ordered by start date
+     */
+    public Result<List<Reservation>> findOverlapping(LocalDate start, LocalDate end) {
+        Result<List<Reservation>> result = new Result<>();
+        if (start == null || end == null) {
+            result.addErrorMessage("start and end dates are required");
+            return result;
+        }
+        if (end.isBefore(start)) {
+            result.addErrorMessage("end date must not be before start date");
+            return result;
+        }
+
+        List<Reservation> reservations = index.findOverlapping(start, end);
+        for (Reservation reservation : reservations) {
+            Guest guest = guestRepository.findById(reservation.getGuest().getId());
+            if (guest != null) {
+                reservation.setGuest(guest);
+            }
+            join(reservation);
+        }
+        result.setPayload(reservations);
+        return result;
+    }
+
+    /**
+     * Helper method that replaces the host holding only an ID with the full
+     * host, keeping the ID when the host is no longer in the host file
+     * @param reservation
+     */
+    private void join(Reservation reservation) {
+        Host host = hostRepository.findById(reservation.getHost().getId());
+        if (host != null) {
+            reservation.setHost(host);
+        }
+    }
+}
@@ -3,24 +3,33 @@ package learn.myhouse.domain;
 import learn.myhouse.data.DataException;
 import learn.myhouse.data.GuestRepository;
 import learn.myhouse.data.HostRepository;
+import learn.myhouse.data.LockStripes;
 import learn.myhouse.data.ReservationRepository;
-import learn.myhouse.model.Guest;
+import learn.myhouse.model.CompactReservation;
 import learn.myhouse.model.Host;
 import learn.myhouse.model.Reservation;
-import org.springframework.stereotype.Service;
 
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
-@Service
 public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final HostRepository hostRepository;
     private final GuestRepository guestRepository;
 
+    //per host index of stay dates used for overlap checks, built on first use and again when the file changes
+    private final Map<String, HostIntervals> intervals = new ConcurrentHashMap<>();
+
+    //makes checking for overlaps and saving a single step for each host
+    private final LockStripes hostLocks = new LockStripes();
+
     /**
      * constructor that accepts and sets the three repositories that the
      * service will carry out tasks on
@@ -40,25 +49,36 @@ public class ReservationService {
      * @return the current list of guests
      */
     public List<Reservation> findByHostId(String hostId){
-
-        //mapping host id and Host
-        Map<String, Host> hostMap = hostRepository.findAll()
-                .stream().collect(Collectors.toMap(i->i.getId(),i -> i));
-
-        //mapping guest id and Guest
-        Map<Integer, Guest> guestMap = guestRepository.findAll()
-                .stream().collect(Collectors.toMap(i -> i.getId(), i -> i));
-
         //get the list of reservations within a host's reservation file
-        List<Reservation> result = reservationRepository.findByHostId(hostId);
+        List<CompactReservation> result = reservationRepository.findCompactByHostId(hostId);
+        return join(result, hostRepository.findById(hostId));
+    }
 
-        /*using the ID retrieved from file and the mappings to fully retrieve
-        each Guest and Host and set the values based on the key (ID)*/
-        for(Reservation reservation: result){
-            reservation.setHost(hostMap.get(reservation.getHost().getId()));
-            reservation.setGuest(guestMap.get(reservation.getGuest().getId()));
-        }
+    /**
+     * Method that retrieves the current list of reservations for a Host that
+     * has already been found, so the host does not have to be looked up again
+     * @param host
+     * @return the current list of reservations for the host
+     */
+    public List<Reservation> findByHost(Host host){
+        List<CompactReservation> result = reservationRepository.findCompactByHostId(host.getId());
+        return join(result, host);
+    }
 
+    /**
+     * Helper method that creates a Reservation with the full Host and Guest
+     * for each compact reservation read from a host's file. Only the guests
+     * referenced by the reservations are looked up, each through the
+     * repository's ID index
+     * @param reservations
+     * @param host
+     * @return the list of reservations
+     */
+    private List<Reservation> join(List<CompactReservation> reservations, Host host){
+        List<Reservation> result = new ArrayList<>(reservations.size());
+        for(CompactReservation reservation: reservations){
+            result.add(reservation.toReservation(guestRepository.findById(reservation.getGuestId()), host));
+        }
         return result;
     }
 
@@ -76,22 +96,82 @@ public class ReservationService {
             return result;
         }
 
-        LocalDate start = reservation.getStartDate();
-        LocalDate end = reservation.getEndDate();
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            ReservationIntervals hostIntervals = getIntervals(hostId);
 
-        //checking if dates overlap with existing reservations
-        for(Reservation r: findByHostId(reservation.getHost().getId())){
-            if( !(start.isBefore(r.getStartDate()) && end.isBefore(r.getStartDate()))
-            && !(start.isAfter(r.getEndDate()) && end.isAfter(r.getEndDate())))
-            {
+            //checking if dates overlap with existing reservations
+            if(hostIntervals.overlaps(reservation.getStartDate(), reservation.getEndDate())){
                 result.addErrorMessage("date must not overlap with existing reservation");
                 return result;
             }
+
+            //add if validations were successful
+            result.setPayload(reservationRepository.add(reservation));
+            hostIntervals.put(result.getPayload());
+            written(hostId);
+            return result;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        //add if validations were successful
-        result.setPayload(reservationRepository.add(reservation));
-        return result;
+    /**
+     * Method that validates reservations for one host and adds the valid
+     * ones with a single write to the repository. Each reservation is also
+     * checked against the ones accepted before it in the list
+     * @param hostId
+     * @param reservations
+     * @return a result for each reservation, in the same order
+     * @throws DataException
+     */
+    public List<Result<Reservation>> addAll(String hostId, List<Reservation> reservations) throws DataException {
+        List<Result<Reservation>> results = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            Result<Reservation> result = validate(reservation); //general validation
+            if (result.isSuccess() && !hostId.equals(reservation.getHost().getId())) {
+                result.addErrorMessage("host cannot be found");
+            }
+            results.add(result);
+        }
+
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            ReservationIntervals hostIntervals = getIntervals(hostId);
+            ReservationIntervals accepted = new ReservationIntervals(reservations.size());
+            List<Reservation> toAdd = new ArrayList<>();
+
+            for (int i = 0; i < reservations.size(); i++) {
+                Reservation reservation = reservations.get(i);
+                Result<Reservation> result = results.get(i);
+                if (!result.isSuccess()) {
+                    continue;
+                }
+
+                //checking against the host's reservations and the earlier ones in the list
+                if (hostIntervals.overlaps(reservation.getStartDate(), reservation.getEndDate())
+                        || accepted.overlaps(reservation.getStartDate(), reservation.getEndDate())) {
+                    result.addErrorMessage("date must not overlap with existing reservation");
+                    continue;
+                }
+                accepted.insert(i, (int) reservation.getStartDate().toEpochDay(),
+                        (int) reservation.getEndDate().toEpochDay());
+                toAdd.add(reservation);
+                result.setPayload(reservation);
+            }
+
+            //add if validations were successful
+            for (Reservation reservation : reservationRepository.addAll(hostId, toAdd)) {
+                hostIntervals.put(reservation);
+            }
+            written(hostId);
+            return results;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -108,26 +188,30 @@ public class ReservationService {
             return result;
         }
 
-        LocalDate start = reservation.getStartDate();
-        LocalDate end = reservation.getEndDate();
+        String hostId = reservation.getHost().getId();
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            ReservationIntervals hostIntervals = getIntervals(hostId);
 
-        /*checking if dates overlap with all existing reservations except for the current
-         reservation being updated*/
-        for(Reservation r: findByHostId(reservation.getHost().getId())){
-            if( !(start.isBefore(r.getStartDate()) && end.isBefore(r.getStartDate()))
-                    && !(start.isAfter(r.getEndDate()) && end.isAfter(r.getEndDate()))){
-                if(reservation.getId() != r.getId()){
-                    result.addErrorMessage("date must not overlap with existing reservation");
-                    return result;
-                }
+            /*checking if dates overlap with all existing reservations except for the current
+             reservation being updated*/
+            if(hostIntervals.overlaps(reservation.getStartDate(), reservation.getEndDate(), reservation.getId())){
+                result.addErrorMessage("date must not overlap with existing reservation");
+                return result;
             }
-        }
 
-        boolean updated = reservationRepository.update(reservation); //attempting to update
-        if(!updated){
-            result.addErrorMessage("reservation does not exist");
+            boolean updated = reservationRepository.update(reservation); //attempting to update
+            if(!updated){
+                result.addErrorMessage("reservation does not exist");
+            }else{
+                hostIntervals.put(reservation);
+                written(hostId);
+            }
+            return result;
+        } finally {
+            lock.unlock();
         }
-        return result;
     }
 
     /**
@@ -142,23 +226,65 @@ public class ReservationService {
     public Result<Reservation> deleteById(int id, String hostId) throws DataException {
         Result<Reservation> result = new Result<>();
 
-        //using find first since there will be only one reservation within the file with the given ID
-        Reservation reservation = reservationRepository.findByHostId(hostId).stream()
-                .filter(i -> i.getId() == id).findFirst().orElse(null);
+        Lock lock = hostLocks.writeLock(hostId);
+        lock.lock();
+        try {
+            //using find first since there will be only one reservation within the file with the given ID
+            Reservation reservation = reservationRepository.findByHostId(hostId).stream()
+                    .filter(i -> i.getId() == id).findFirst().orElse(null);
+
+            //checking if reservation has already passed since we can't cancel a reservation in the past
+            if(reservation!=null){
+                if( reservation.getStartDate().isBefore(LocalDate.now()) ){
+                    result.addErrorMessage("cannot delete past reservation");
+                    return result;
+                }
+            }
 
-        //checking if reservation has already passed since we can't cancel a reservation in the past
-        if(reservation!=null){
-            if( reservation.getStartDate().isBefore(LocalDate.now()) ){
-                result.addErrorMessage("cannot delete past reservation");
-                return result;
+            //attempting to delete
+            if(!reservationRepository.deleteById(id,hostId)){  //checking if deletion was unsuccessful
+                result.addErrorMessage("reservation does not exist");
+            }else{
+                getIntervals(hostId).remove(id);
+                written(hostId);
             }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that returns the interval index for a host, reading the
+     * host's reservations the first time it is needed and again whenever
+     * the host's file has changed since, so changes made by another process
+     * or another path are seen. Only the dates are indexed so guests and
+     * hosts do not have to be joined. The caller holds the host's lock
+     * @param hostId
+     * @return the interval index for the host
+     */
+    private ReservationIntervals getIntervals(String hostId){
+        //the attributes are read before the rows, so a change during the read is caught next time
+        BasicFileAttributes attributes = reservationRepository.getFileAttributes(hostId);
+        HostIntervals cached = intervals.get(hostId);
+        if(cached == null || !cached.matches(attributes)){
+            cached = new HostIntervals(
+                    ReservationIntervals.ofCompact(reservationRepository.findCompactByHostId(hostId)), attributes);
+            intervals.put(hostId, cached);
         }
+        return cached.intervals;
+    }
 
-        //attempting to delete
-        if(!reservationRepository.deleteById(id,hostId)){  //checking if deletion was unsuccessful
-            result.addErrorMessage("reservation does not exist");
+    /**
+     * Helper method that records the file attributes after the service has
+     * written to a host's file itself, since the index already holds the change
+     * @param hostId
+     */
+    private void written(String hostId){
+        HostIntervals cached = intervals.get(hostId);
+        if(cached != null){
+            cached.stamp(reservationRepository.getFileAttributes(hostId));
         }
-        return result;
     }
 
     /**
@@ -257,4 +383,31 @@ public class ReservationService {
                 .sorted(Comparator.comparing(Reservation::getStartDate))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * A host's interval index with the size and last modified time of the
+     * file it matches
+     */
+    private static class HostIntervals {
+        private final ReservationIntervals intervals;
+        private volatile long lastModified;
+        private volatile long size;
+
+        private HostIntervals(ReservationIntervals intervals, BasicFileAttributes attributes) {
+            this.intervals = intervals;
+            stamp(attributes);
+        }
+
+        private void stamp(BasicFileAttributes attributes) {
+            lastModified = attributes == null ? -1 : attributes.lastModifiedTime().toMillis();
+            size = attributes == null ? -1 : attributes.size();
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            if (attributes == null) {
+                return lastModified == -1 && size == -1;
+            }
+            return lastModified == attributes.lastModifiedTime().toMillis() && size == attributes.size();
+        }
+    }
 }
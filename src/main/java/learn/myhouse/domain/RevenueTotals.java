@@ -0,0 +1,67 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.CompactReservation;
+
+import java.math.BigDecimal;
+
+/**
+ * Class that holds the revenue, nights and reservations of one group in an
+ * analytics report, along with the nights the group's hosts could have
+ * been booked, so the occupancy rate can be worked out
+ */
+public class RevenueTotals {
+    private long reservations;
+    private long nights;
+    private long revenueCents;
+    private long availableNights;
+
+    void add(long reservations, long nights, long revenueCents) {
+        this.reservations += reservations;
+        this.nights += nights;
+        this.revenueCents += revenueCents;
+    }
+
+    void addAvailable(long nights) {
+        availableNights += nights;
+    }
+
+    void add(RevenueTotals other) {
+        add(other.reservations, other.nights, other.revenueCents);
+        availableNights += other.availableNights;
+    }
+
+    //reservations that start in the group
+    public long getReservations() {
+        return reservations;
+    }
+
+    public long getNights() {
+        return nights;
+    }
+
+    public BigDecimal getRevenue() {
+        return CompactReservation.fromCents(revenueCents);
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public long getAvailableNights() {
+        return availableNights;
+    }
+
+    /**
+     * Method that returns the share of available nights that were booked
+     * @return the occupancy rate from 0 to 1, more if stays overlap
+     */
+    public double getOccupancyRate() {
+        return availableNights == 0 ? 0 : (double) nights / availableNights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("reservations=%s nights=%s revenue=%s occupancy=%.1f%%",
+                reservations, nights, getRevenue(), getOccupancyRate() * 100);
+    }
+}
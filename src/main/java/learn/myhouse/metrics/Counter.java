@@ -0,0 +1,36 @@
+package learn.myhouse.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count that only goes up, such as rows read or errors seen.
+ */
+public class Counter extends Metric {
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String labels) {
+        super(name, labels);
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    String getType() {
+        return "counter";
+    }
+
+    @Override
+    void write(StringBuilder out) {
+        sample(out, getName(), getLabels(), count.sum());
+    }
+}
@@ -0,0 +1,64 @@
+package learn.myhouse.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of values over fixed bucket bounds, such as file sizes.
+ * Written as a Prometheus histogram with cumulative buckets
+ */
+public class Histogram extends Metric {
+    private final long[] bounds;
+    private final LongAdder[] buckets; //one more than the bounds for values above the last bound
+    private final LongAdder sum = new LongAdder();
+
+    Histogram(String name, String labels, long[] bounds) {
+        super(name, labels);
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Method that records a value in the first bucket whose bound it does not exceed
+     * @param value
+     */
+    public void record(long value) {
+        int index = Arrays.binarySearch(bounds, value);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    @Override
+    String getType() {
+        return "histogram";
+    }
+
+    @Override
+    void write(StringBuilder out) {
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+            sample(out, getName() + "_bucket", withLabel(getLabels(), "le", le), cumulative);
+        }
+        sample(out, getName() + "_sum", getLabels(), sum.sum());
+        sample(out, getName() + "_count", getLabels(), cumulative);
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+}
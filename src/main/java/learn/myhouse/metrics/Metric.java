@@ -0,0 +1,49 @@
+package learn.myhouse.metrics;
+
+/**
+ * Base class of a named measurement with optional labels, written in the
+ * Prometheus text format.
+ */
+abstract class Metric {
+    private final String name;
+    private final String labels; //already formatted as {a="b",...}, or empty
+
+    Metric(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getLabels() {
+        return labels;
+    }
+
+    //Prometheus type written on the TYPE line
+    abstract String getType();
+
+    /**
+     * Method that writes the samples of the metric
+     * @param out
+     */
+    abstract void write(StringBuilder out);
+
+    /**
+     * Helper method that writes one sample line
+     * @param out
+     * @param name
+     * @param labels
+     * @param value
+     */
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,32 @@
+package learn.myhouse.metrics;
+
+/**
+ * Global registry shared by the repositories, services and ui so one
+ * scrape covers the whole process.
+ */
+public final class Metrics {
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    //file size bucket bounds in bytes, 1KB to 16MB
+    public static final long[] FILE_SIZE_BOUNDS = {1 << 10, 4 << 10, 16 << 10, 64 << 10, 256 << 10,
+            1 << 20, 4 << 20, 16 << 20};
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    public static Counter counter(String name, String... labels) {
+        return REGISTRY.counter(name, labels);
+    }
+
+    public static Timer timer(String name, String... labels) {
+        return REGISTRY.timer(name, labels);
+    }
+
+    public static Histogram histogram(String name, long[] bounds, String... labels) {
+        return REGISTRY.histogram(name, bounds, labels);
+    }
+}
@@ -0,0 +1,123 @@
+package learn.myhouse.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Class that holds metrics by name and labels and writes them in the
+ * Prometheus text format. Looking a metric up again returns the same
+ * instance, so callers on hot paths keep it in a field and only pay for
+ * the update
+ */
+public class MetricsRegistry {
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Method that returns the counter with the given name and labels
+     * @param name
+     * @param labels alternating label names and values
+     * @return the counter
+     */
+    public Counter counter(String name, String... labels) {
+        return get(name, labels, Counter.class, formatted -> new Counter(name, formatted));
+    }
+
+    /**
+     * Method that returns the timer with the given name and labels
+     * @param name
+     * @param labels alternating label names and values
+     * @return the timer
+     */
+    public Timer timer(String name, String... labels) {
+        return get(name, labels, Timer.class, formatted -> new Timer(name, formatted));
+    }
+
+    /**
+     * Method that returns the histogram with the given name and labels,
+     * creating it with the bucket bounds if it does not exist
+     * @param name
+     * @param bounds
+     * @param labels alternating label names and values
+     * @return the histogram
+     */
+    public Histogram histogram(String name, long[] bounds, String... labels) {
+        return get(name, labels, Histogram.class, formatted -> new Histogram(name, formatted, bounds));
+    }
+
+    /**
+     * Method that writes every metric, grouped by name with a TYPE line
+     * for each name
+     * @return the Prometheus text
+     */
+    public String scrape() {
+        List<Metric> sorted = new ArrayList<>(metrics.values());
+        sorted.sort(Comparator.comparing(Metric::getName).thenComparing(Metric::getLabels));
+
+        StringBuilder out = new StringBuilder();
+        String previous = null;
+        for (Metric metric : sorted) {
+            if (!metric.getName().equals(previous)) {
+                out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+                previous = metric.getName();
+            }
+            metric.write(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Method that writes every metric to a file, replacing it in one move
+     * so a reader never sees half of it
+     * @param path
+     * @throws IOException
+     */
+    public void writeTo(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, scrape().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private <T extends Metric> T get(String name, String[] labels, Class<T> type, Function<String, T> create) {
+        String formatted = formatLabels(labels);
+        Metric metric = metrics.computeIfAbsent(name + formatted, key -> create.apply(formatted));
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + metric.getType());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Helper method that formats label pairs as {name="value",...}
+     * @param labels
+     * @return the formatted labels, or an empty string if there are none
+     */
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be name and value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            result.append(i == 0 ? "" : ",").append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return result.append('}').toString();
+    }
+}
@@ -0,0 +1,62 @@
+package learn.myhouse.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number, total and longest duration of a repeated operation. Written as a
+ * Prometheus summary in seconds with the longest duration as a _max sample
+ */
+public class Timer extends Metric {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Timer(String name, String labels) {
+        super(name, labels);
+    }
+
+    /**
+     * Method that records an operation that started at the given time
+     * @param startNanos the System.nanoTime() taken when the operation started
+     */
+    public void record(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Method that records the duration of an operation
+     * @param nanos
+     */
+    public void recordNanos(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @Override
+    String getType() {
+        return "summary";
+    }
+
+    @Override
+    void write(StringBuilder out) {
+        double nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        sample(out, getName() + "_count", getLabels(), count.sum());
+        sample(out, getName() + "_sum", getLabels(), totalNanos.sum() / nanosPerSecond);
+        sample(out, getName() + "_max", getLabels(), maxNanos.get() / nanosPerSecond);
+    }
+}
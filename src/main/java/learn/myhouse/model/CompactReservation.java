@@ -0,0 +1,160 @@
+package learn.myhouse.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Class that represents a stored reservation for read paths such as
+ * listings, overlap checks and reports. Dates are kept as epoch days and
+ * the total as cents, so a row costs one small object instead of a
+ * Reservation with its dates, total and stub guest and host. It is
+ * immutable and turned into a Reservation only when one is needed.
+ */
+public final class CompactReservation {
+    //cents value of a reservation without a total
+    public static final long NO_TOTAL = Long.MIN_VALUE;
+
+    private final int id;
+    private final int startDay;
+    private final int endDay;
+    private final int guestId;
+    private final String hostId;
+    private final long totalCents;
+
+    public CompactReservation(int id, int startDay, int endDay, int guestId, String hostId, long totalCents) {
+        this.id = id;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.guestId = guestId;
+        this.hostId = hostId;
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * Method that copies the stored fields of a reservation
+     * @param reservation
+     * @return the compact reservation
+     */
+    public static CompactReservation of(Reservation reservation) {
+        return new CompactReservation(reservation.getId(),
+                (int) reservation.getStartDate().toEpochDay(),
+                (int) reservation.getEndDate().toEpochDay(),
+                reservation.getGuest().getId(),
+                reservation.getHost().getId(),
+                toCents(reservation.getTotal()));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getStartDay() {
+        return startDay;
+    }
+
+    public int getEndDay() {
+        return endDay;
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(startDay);
+    }
+
+    public LocalDate getEndDate() {
+        return LocalDate.ofEpochDay(endDay);
+    }
+
+    public int getGuestId() {
+        return guestId;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public BigDecimal getTotal() {
+        return fromCents(totalCents);
+    }
+
+    /**
+     * Method that returns the number of nights between the start and end dates
+     * @return the nights stayed
+     */
+    public int getNights() {
+        return Math.max(0, endDay - startDay);
+    }
+
+    /**
+     * Method that checks whether the stay has at least one day in common
+     * with the given epoch days. Stays that end on the start day or begin
+     * on the end day count as overlapping
+     * @param start
+     * @param end
+     * @return whether the stay overlaps
+     */
+    public boolean overlaps(int start, int end) {
+        return startDay <= end && endDay >= start;
+    }
+
+    /**
+     * Method that creates a Reservation holding the stored ids for its guest and host
+     * @return the Reservation
+     */
+    public Reservation toReservation() {
+        Guest guest = new Guest();
+        guest.setId(guestId);
+        Host host = new Host();
+        host.setId(hostId);
+        return toReservation(guest, host);
+    }
+
+    /**
+     * Method that creates a Reservation for the guest and host it belongs to,
+     * for when the full guest and host have already been found
+     * @param guest
+     * @param host
+     * @return the Reservation
+     */
+    public Reservation toReservation(Guest guest, Host host) {
+        Reservation result = new Reservation(getStartDate(), getEndDate(), guest, host, getTotal());
+        result.setId(id);
+        return result;
+    }
+
+    /**
+     * Helper method that converts a total to cents, rounding half up
+     * anything smaller than a cent
+     * @param total
+     * @return the total in cents
+     */
+    public static long toCents(BigDecimal total) {
+        if (total == null) {
+            return NO_TOTAL;
+        }
+        return total.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Helper method that converts cents back to a total, leaving off zero
+     * cents so whole amounts read back the way the CSV files store them
+     * @param cents
+     * @return the total
+     */
+    public static BigDecimal fromCents(long cents) {
+        if (cents == NO_TOTAL) {
+            return null;
+        }
+        if (cents % 100 == 0) {
+            return BigDecimal.valueOf(cents / 100);
+        }
+        if (cents % 10 == 0) {
+            return BigDecimal.valueOf(cents / 10, 1);
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
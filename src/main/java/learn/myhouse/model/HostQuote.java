@@ -0,0 +1,25 @@
+package learn.myhouse.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Class that represents a host that is free for a stay, along with what
+ * the stay would cost there.
+ */
+public class HostQuote {
+    private final Host host;
+    private final BigDecimal total;
+
+    public HostQuote(Host host, BigDecimal total) {
+        this.host = host;
+        this.total = total;
+    }
+
+    public Host getHost() {
+        return host;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,384 @@
+package learn.myhouse.ui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import learn.myhouse.data.DataException;
+import learn.myhouse.domain.GuestService;
+import learn.myhouse.domain.HostService;
+import learn.myhouse.domain.PricingEngine;
+import learn.myhouse.domain.ReservationSearchService;
+import learn.myhouse.domain.ReservationService;
+import learn.myhouse.domain.Result;
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class that serves the reservation operations over HTTP on the local
+ * machine so bookings can be made without the console. Requests and
+ * responses use the same fields as the console:
+ *
+ *   GET    /reservations?host=email
+ *   GET    /reservations?guest=email                  stays with every host
+ *   GET    /reservations?start=date&end=date          stays with every host
+ *   POST   /reservations             host, guest, start, end (form encoded)
+ *   PUT    /reservations/{id}        host, start, end (form encoded)
+ *   DELETE /reservations/{id}?host=email
+ *   GET    /metrics                  Prometheus text
+ *
+ * Each request runs on its own virtual thread when the JVM has them,
+ * otherwise on a cached thread pool.
+ */
+public class BookingServer {
+    private static final String PATH = "/reservations";
+
+    private final ReservationService reservationService;
+    private final ReservationSearchService reservationSearchService;
+    private final HostService hostService;
+    private final GuestService guestService;
+    private final PricingEngine pricingEngine;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * constructor that accepts the services the requests are carried out with
+     * @param reservationService
+     * @param reservationSearchService
+     * @param hostService
+     * @param guestService
+     * @param pricingEngine
+     */
+    public BookingServer(ReservationService reservationService, ReservationSearchService reservationSearchService,
+                         HostService hostService, GuestService guestService, PricingEngine pricingEngine) {
+        this.reservationService = reservationService;
+        this.reservationSearchService = reservationSearchService;
+        this.hostService = hostService;
+        this.guestService = guestService;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Method that starts listening on the loopback address
+     * @param port the port, or 0 to pick a free one
+     * @return the address the server listens on
+     * @throws IOException
+     */
+    public synchronized InetSocketAddress start(int port) throws IOException {
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.createContext("/metrics", this::scrape);
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * Method that stops accepting requests and waits briefly for the ones
+     * in progress
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    /**
+     * Method that creates an executor with one virtual thread per request.
+     * Virtual threads are looked up by name so the project still builds and
+     * runs on JVMs older than 21, which get a cached thread pool instead
+     * @return the executor for requests
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "booking-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Method that routes a request to the operation for its method and path
+     * @param exchange
+     * @throws IOException
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String id = path.length() > PATH.length() + 1 ? path.substring(PATH.length() + 1) : null;
+            Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    if (query.containsKey("guest")) {
+                        findByGuest(exchange, query);
+                    } else if (query.containsKey("start") || query.containsKey("end")) {
+                        findOverlapping(exchange, query);
+                    } else {
+                        find(exchange, query);
+                    }
+                    break;
+                case "POST":
+                    add(exchange, parseForm(readBody(exchange)));
+                    break;
+                case "PUT":
+                    update(exchange, parseId(id), parseForm(readBody(exchange)));
+                    break;
+                case "DELETE":
+                    delete(exchange, parseId(id), query);
+                    break;
+                default:
+                    send(exchange, 405, error("method not allowed"));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            send(exchange, 400, error(ex.getMessage()));
+        } catch (DataException ex) {
+            Metrics.counter("data_exceptions_total", "source", "http").increment();
+            send(exchange, 500, error(ex.getMessage()));
+        } catch (RuntimeException ex) {
+            //a damaged file or bad row still gets an answer rather than a dropped connection
+            Metrics.counter("unexpected_exceptions_total", "source", "http",
+                    "exception", ex.getClass().getSimpleName()).increment();
+            send(exchange, 500, error("internal error: " + ex.getClass().getSimpleName()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try {
+            byte[] bytes = Metrics.registry().scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void find(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Host host = findHost(query);
+        sendReservations(exchange, reservationService.sortByDate(reservationService.findByHost(host)));
+    }
+
+    private void findByGuest(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Guest guest = guestService.findByEmail(required(query, "guest"));
+        if (guest == null) {
+            throw new IllegalArgumentException("guest does not exist");
+        }
+        sendReservations(exchange, reservationSearchService.findByGuest(guest));
+    }
+
+    private void findOverlapping(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDate start = LocalDate.parse(required(query, "start"));
+        LocalDate end = LocalDate.parse(required(query, "end"));
+        Result<List<Reservation>> result = reservationSearchService.findOverlapping(start, end);
+        if (!result.isSuccess()) {
+            send(exchange, 400, errors(result.getErrorMessages()));
+            return;
+        }
+        sendReservations(exchange, result.getPayload());
+    }
+
+    private void add(HttpExchange exchange, Map<String, String> form) throws IOException, DataException {
+        Host host = findHost(form);
+        Guest guest = guestService.findByEmail(required(form, "guest"));
+        if (guest == null) {
+            throw new IllegalArgumentException("guest does not exist");
+        }
+
+        LocalDate start = LocalDate.parse(required(form, "start"));
+        LocalDate end = LocalDate.parse(required(form, "end"));
+        Reservation reservation = new Reservation(start, end, guest, host, pricingEngine.getTotal(start, end, host));
+
+        sendResult(exchange, 201, reservationService.add(reservation), reservation);
+    }
+
+    private void update(HttpExchange exchange, int id, Map<String, String> form) throws IOException, DataException {
+        Host host = findHost(form);
+        Reservation reservation = reservationService.findByHost(host).stream()
+                .filter(i -> i.getId() == id)
+                .findFirst()
+                .orElse(null);
+        if (reservation == null) {
+            send(exchange, 404, error("reservation does not exist"));
+            return;
+        }
+
+        reservation.setStartDate(LocalDate.parse(required(form, "start")));
+        reservation.setEndDate(LocalDate.parse(required(form, "end")));
+        reservation.setTotal(pricingEngine.getTotal(reservation.getStartDate(), reservation.getEndDate(), host));
+
+        sendResult(exchange, 200, reservationService.update(reservation), reservation);
+    }
+
+    private void delete(HttpExchange exchange, int id, Map<String, String> query) throws IOException, DataException {
+        Host host = findHost(query);
+        Result<Reservation> result = reservationService.deleteById(id, host.getId());
+        if (result.isSuccess()) {
+            send(exchange, 204, null);
+        } else {
+            send(exchange, 400, errors(result.getErrorMessages()));
+        }
+    }
+
+    private Host findHost(Map<String, String> fields) {
+        Host host = hostService.findByEmail(required(fields, "host"));
+        if (host == null) {
+            throw new IllegalArgumentException("host does not exist");
+        }
+        return host;
+    }
+
+    private void sendReservations(HttpExchange exchange, List<Reservation> reservations) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (Reservation reservation : reservations) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendReservation(json, reservation);
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private void sendResult(HttpExchange exchange, int status, Result<Reservation> result, Reservation reservation)
+            throws IOException {
+        if (!result.isSuccess()) {
+            send(exchange, 400, errors(result.getErrorMessages()));
+            return;
+        }
+        StringBuilder json = new StringBuilder();
+        appendReservation(json, reservation);
+        send(exchange, status, json.toString());
+    }
+
+    /**
+     * Helper method that writes a reservation as a JSON object
+     * @param json
+     * @param reservation
+     */
+    private static void appendReservation(StringBuilder json, Reservation reservation) {
+        json.append("{\"id\":").append(reservation.getId())
+                .append(",\"hostId\":").append(quote(reservation.getHost().getId()))
+                .append(",\"guestId\":").append(reservation.getGuest().getId())
+                .append(",\"guestEmail\":").append(quote(reservation.getGuest().getEmail()))
+                .append(",\"startDate\":").append(quote(String.valueOf(reservation.getStartDate())))
+                .append(",\"endDate\":").append(quote(String.valueOf(reservation.getEndDate())))
+                .append(",\"total\":").append(reservation.getTotal() == null ? "null" : reservation.getTotal().toPlainString())
+                .append('}');
+    }
+
+    private static String error(String message) {
+        return errors(List.of(message == null ? "invalid request" : message));
+    }
+
+    private static String errors(List<String> messages) {
+        StringBuilder json = new StringBuilder("{\"errors\":[");
+        for (int i = 0; i < messages.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(quote(messages.get(i)));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Helper method that writes a string as a JSON string literal
+     * @param value
+     * @return the quoted and escaped value
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("reservation ID must be a number");
+        }
+    }
+
+    /**
+     * Helper method that decodes name=value pairs joined by ampersands
+     * @param text
+     * @return the decoded pairs
+     */
+    static Map<String, String> parseForm(String text) {
+        Map<String, String> result = new HashMap<>();
+        if (text == null || text.isEmpty()) {
+            return result;
+        }
+        for (String pair : text.split("&")) {
+            int split = pair.indexOf('=');
+            String name = split < 0 ? pair : pair.substring(0, split);
+            String value = split < 0 ? "" : pair.substring(split + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
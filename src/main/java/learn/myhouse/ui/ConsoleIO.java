@@ -1,14 +1,11 @@
 package learn.myhouse.ui;
 
-import org.springframework.stereotype.Component;
-
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 
-@Component
 public class ConsoleIO {
     //private static fields that represent input error messages for user
     private static final String INVALID_NUMBER
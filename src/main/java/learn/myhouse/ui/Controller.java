@@ -2,39 +2,44 @@ package learn.myhouse.ui;
 
 import learn.myhouse.data.DataException;
 import learn.myhouse.domain.GuestService;
+import learn.myhouse.domain.HostSearchService;
 import learn.myhouse.domain.HostService;
 import learn.myhouse.domain.ReservationService;
 import learn.myhouse.domain.Result;
+import learn.myhouse.metrics.Metrics;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
+import learn.myhouse.model.HostQuote;
 import learn.myhouse.model.Reservation;
-import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
-@Component
 public class Controller {
     //repositories
     private final ReservationService reservationService;
     private final HostService hostService;
     private final GuestService guestService;
+    private final HostSearchService hostSearchService;
 
     //view
     private final View view;
 
     /**
-     * constructor that accepts the three services and a view as a dependency injection
+     * constructor that accepts the four services and a view as a dependency injection
      * @param reservationService
      * @param hostService
      * @param guestService
+     * @param hostSearchService
      * @param view
      */
-    public Controller(ReservationService reservationService, HostService hostService, GuestService guestService, View view) {
+    public Controller(ReservationService reservationService, HostService hostService, GuestService guestService,
+                      HostSearchService hostSearchService, View view) {
         this.reservationService = reservationService;
         this.hostService = hostService;
         this.guestService = guestService;
+        this.hostSearchService = hostSearchService;
         this.view = view;
     }
 
@@ -46,6 +51,7 @@ public class Controller {
         try {
             runAppLoop(); //running app loop
         } catch (DataException ex) {
+            Metrics.counter("data_exceptions_total", "source", "console").increment();
             view.displayException(ex);
         }
         view.displayHeader("Goodbye."); //goodbye message
@@ -73,6 +79,9 @@ public class Controller {
                 case CANCEL_RESERVATION:
                     cancelReservation();
                     break;
+                case SEARCH_AVAILABLE_HOSTS:
+                    searchAvailableHosts();
+                    break;
             }
         } while (option != MainMenuOption.EXIT);
     }
@@ -93,10 +102,31 @@ public class Controller {
 
         //retrieving and displaying the sorted list of reservations for the given Host
         view.displayHeader(String.format("%s: %s,%s",host.getLastName(),host.getCity(),host.getState()));
-        List<Reservation> reservations = reservationService.findByHostId(host.getId());
+        List<Reservation> reservations = reservationService.findByHost(host);
         view.displayReservations(reservationService.sortByDate(reservations));
     }
 
+    /**
+     * Method that uses the view and host search service to list every host
+     * free for the entered dates, optionally in a given state, city or
+     * postal code, cheapest first
+     */
+    private void searchAvailableHosts(){
+        view.displayHeader("Search Available Hosts");
+        LocalDate start = view.getStayDate("start");
+        LocalDate end = view.getStayDate("end");
+        String state = view.getLocation("State");
+        String city = view.getLocation("City");
+        String postCode = view.getLocation("Postal Code");
+
+        Result<List<HostQuote>> result = hostSearchService.search(start, end, state, city, postCode);
+        if(!result.isSuccess()){
+            view.displayStatus(false, result.getErrorMessages());
+            return;
+        }
+        view.displayHostQuotes(result.getPayload());
+    }
+
     /**
      * Method that uses the view, host service, reservation service and
      * guest service to allow a user to select a guest and their desired
@@ -121,7 +151,7 @@ public class Controller {
 
         //retrieving and displaying the sorted list of reservations for the given Host
         view.displayHeader(String.format("%s: %s,%s",host.getLastName(),host.getCity(),host.getState()));
-        List<Reservation> reservations = reservationService.findByHostId(host.getId());
+        List<Reservation> reservations = reservationService.findByHost(host);
         view.displayReservations(reservationService.sortByDate(reservations));
 
         //making reservation
@@ -169,7 +199,7 @@ public class Controller {
 
         //retrieving list of reservations for the given guest and host
         view.displayHeader(String.format("%s: %s,%s",host.getLastName(),host.getCity(),host.getState()));
-        List<Reservation> reservations = reservationService.findByHostId(host.getId())
+        List<Reservation> reservations = reservationService.findByHost(host)
                 .stream()
                 .filter(i -> i.getGuest().getId() == guest.getId())
                 .filter(i -> i.getStartDate().isAfter(LocalDate.now()))
@@ -232,7 +262,7 @@ public class Controller {
         Result<Reservation> result = new Result<>();
 
         //finding all future reservations between Host and Guest
-        List<Reservation> reservations = reservationService.findByHostId(host.getId())
+        List<Reservation> reservations = reservationService.findByHost(host)
                 .stream()
                 .filter(i -> i.getGuest().getId() == guest.getId())
                 .filter(i -> i.getStartDate().isAfter(LocalDate.now()))
@@ -5,7 +5,8 @@ public enum MainMenuOption {
     VIEW_RESERVATIONS_BY_DATE(1, "View Reservations for Host"),
     MAKE_RESERVATION(2,"Make a Reservation"),
     EDIT_RESERVATION(3, "Edit a Reservation"),
-    CANCEL_RESERVATION(4, "Cancel a Reservation");
+    CANCEL_RESERVATION(4, "Cancel a Reservation"),
+    SEARCH_AVAILABLE_HOSTS(5, "Search Available Hosts");
 
 
     private int value;
@@ -1,29 +1,30 @@
 package learn.myhouse.ui;
 
+import learn.myhouse.domain.PricingEngine;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
+import learn.myhouse.model.HostQuote;
 import learn.myhouse.model.Reservation;
-import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 
-@Component
 public class View {
     public final ConsoleIO io; //facilitates user input and application output
+    private final PricingEngine pricingEngine; //calculates reservation totals
 
     /**
-     * constructor that accepts a Console IO object
+     * constructor that accepts a Console IO object and the pricing engine
      * @param io
+     * @param pricingEngine
      */
-    public View(ConsoleIO io){
+    public View(ConsoleIO io, PricingEngine pricingEngine){
         this.io = io;
+        this.pricingEngine = pricingEngine;
     }
 
     /**
@@ -121,32 +122,15 @@ public class View {
     }
 
     /**
-     * Method that accepts a start date, end date, a host and calculates the reservation
-     * total based on the length of stay, the day of the weeks and the rates of the host
+     * Method that accepts a start date, end date, a host and uses the pricing
+     * engine to calculate the reservation total
      * @param startDate
      * @param endDate
      * @param host
      * @return the total based on dates and rates
      */
-    private BigDecimal getReservationTotal(LocalDate startDate, LocalDate endDate, Host host){
-        //counting the number of days between start and end dates
-        int noOfDays = (int) ChronoUnit.DAYS.between(startDate,endDate);
-        BigDecimal weekDay = BigDecimal.ZERO;
-        BigDecimal weekEnd = BigDecimal.ZERO;
-
-        for(int i=0;i<noOfDays;i++){
-            //checking if day of the week is a weekend for weekend rate
-            if(startDate.plusDays(i).getDayOfWeek() == DayOfWeek.FRIDAY ||
-                    startDate.plusDays(i).getDayOfWeek() == DayOfWeek.SATURDAY){
-                weekEnd = weekEnd.add(BigDecimal.ONE); //adding one to weekend count
-            }else { //checking if day of the week is a week day for standard rate
-                weekDay = weekDay.add(BigDecimal.ONE); //adding one to week day count
-            }
-        }
-
-        //multiplying the days counter with its corresponding rate and adding the two sums
-        return weekDay.multiply(host.getStandardRate())
-                .add(weekEnd.multiply(host.getWeekendRate()));
+    BigDecimal getReservationTotal(LocalDate startDate, LocalDate endDate, Host host){
+        return pricingEngine.getTotal(startDate, endDate, host);
     }
 
     /**
@@ -213,6 +197,48 @@ public class View {
         return io.readRequiredString("Host Email: ");
     }
 
+    /**
+     * Method that uses ConsoleIO to get a stay date
+     * @param name start or end
+     * @return the entered date
+     */
+    public LocalDate getStayDate(String name){
+        return io.readLocalDate(String.format("Enter %s date [MM/dd/yyyy]: ", name));
+    }
+
+    /**
+     * Method that uses ConsoleIO to get a location to narrow a search to
+     * @param name
+     * @return the entered value, blank to match any location
+     */
+    public String getLocation(String name){
+        return io.readString(String.format("%s (blank for any): ", name)).trim();
+    }
+
+    /**
+     * Method that displays the hosts free for a stay along with the total
+     * of the stay at each
+     * @param quotes
+     */
+    public void displayHostQuotes(List<HostQuote> quotes){
+        if(quotes == null || quotes.isEmpty()){ //printing message for empty list
+            io.println("No available hosts found");
+            return;
+        }
+        io.println("");
+
+        for(HostQuote quote: quotes){
+            Host host = quote.getHost();
+            io.printf("%s, %s, %s %s, Email: %s, Total: $%s%n",
+                    host.getLastName(),
+                    host.getCity(),
+                    host.getState(),
+                    host.getPostCode(),
+                    host.getEmail(),
+                    quote.getTotal().setScale(2,RoundingMode.HALF_UP));
+        }
+    }
+
     /**
      * Method that uses ConsoleIO to get a Guest email
      * @return the entered email
@@ -0,0 +1,47 @@
+package learn.myhouse;
+
+import learn.myhouse.domain.HostService;
+import learn.myhouse.ui.Controller;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppConfigTest {
+
+    @Test
+    void shouldOnlyCreateBeansThatAreAskedFor() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class)) {
+            assertFalse(context.getBeanFactory().containsSingleton("controller"));
+
+            assertNotNull(context.getBean(Controller.class));
+
+            assertTrue(context.getBeanFactory().containsSingleton("hostService"));
+            assertFalse(context.getBeanFactory().containsSingleton("bookingServer"));
+        }
+    }
+
+    @Test
+    void shouldReadPathsFromDataProperties() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class)) {
+            HostService hostService = context.getBean(HostService.class);
+
+            assertNotNull(hostService.findByEmail("kdeclerkdc@sitemeter.com"));
+        }
+    }
+
+    @Test
+    void shouldWireManually() throws IOException {
+        Properties properties = ManualWiring.loadProperties();
+        ManualWiring wiring = new ManualWiring(properties);
+
+        assertEquals("./data/reservations", properties.getProperty("reservationDirectoryPath"));
+        assertNotNull(wiring.controller());
+        assertNotNull(wiring.bookingServer());
+        assertSame(wiring.analyticsService(), wiring.analyticsService());
+        assertSame(wiring.reservationExporter(), wiring.reservationExporter());
+    }
+}
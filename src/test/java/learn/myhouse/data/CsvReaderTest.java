@@ -0,0 +1,153 @@
+package learn.myhouse.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void shouldReadFields() throws IOException {
+        CsvReader reader = reader("1,2021-10-12,368.75,hello\n");
+
+        assertTrue(reader.next());
+        assertEquals(4, reader.getFieldCount());
+        assertEquals(1, reader.getInt(0));
+        assertEquals(LocalDate.of(2021,10,12), reader.getLocalDate(1));
+        assertEquals(new BigDecimal("368.75"), reader.getBigDecimal(2));
+        assertEquals("hello", reader.getString(3));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldKeepScaleOfDecimals() throws IOException {
+        CsvReader reader = reader("425,1300,-0.50,1.5E+3");
+
+        assertTrue(reader.next());
+        for (int i = 0; i < 4; i++) {
+            BigDecimal expected = new BigDecimal(reader.getString(i));
+            assertEquals(expected, reader.getBigDecimal(i));
+            assertEquals(expected.scale(), reader.getBigDecimal(i).scale());
+        }
+    }
+
+    @Test
+    void shouldReadDecimalsAsCents() throws IOException {
+        CsvReader reader = reader("425,1300.5,-0.05,368.75,0.125,1.5E+3,2021-10-12");
+
+        assertTrue(reader.next());
+        assertEquals(42500, reader.getCents(0));
+        assertEquals(130050, reader.getCents(1));
+        assertEquals(-5, reader.getCents(2));
+        assertEquals(36875, reader.getCents(3));
+        assertEquals(13, reader.getCents(4)); //rounded half up
+        assertEquals(150000, reader.getCents(5));
+        assertEquals(LocalDate.of(2021,10,12).toEpochDay(), reader.getEpochDay(6));
+    }
+
+    @Test
+    void shouldReadQuotedFields() throws IOException {
+        CsvReader reader = reader("a,\"12 Main St, Apt 4\",\"say \"\"hi\"\"\",\"two\nlines\"\nb,c\n");
+
+        assertTrue(reader.next());
+        assertEquals(4, reader.getFieldCount());
+        assertEquals("12 Main St, Apt 4", reader.getString(1));
+        assertEquals("say \"hi\"", reader.getString(2));
+        assertEquals("two\nlines", reader.getString(3));
+
+        assertTrue(reader.next());
+        assertEquals(2, reader.getFieldCount());
+        assertEquals("c", reader.getString(1));
+    }
+
+    @Test
+    void shouldReadEmptyFieldsAndLines() throws IOException {
+        CsvReader reader = reader("a,,\n\r\nb\r\n");
+
+        assertTrue(reader.next());
+        assertEquals(3, reader.getFieldCount());
+        assertEquals("", reader.getString(1));
+        assertEquals("", reader.getString(2));
+
+        assertTrue(reader.next());
+        assertEquals(1, reader.getFieldCount());
+
+        assertTrue(reader.next());
+        assertEquals("b", reader.getString(0));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldReadRecordsAcrossBufferRefills() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(i).append(",\"name, ").append(i).append("\",2022-01-").append(10 + i % 20).append("\r\n");
+        }
+        text.append("last,").append("x".repeat(50)); //longer than the buffer and no final line break
+
+        CsvReader reader = new CsvReader(Channels.newChannel(
+                new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8))), 8);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(reader.next());
+            assertEquals(3, reader.getFieldCount());
+            assertEquals(i, reader.getInt(0));
+            assertEquals("name, " + i, reader.getString(1));
+            assertEquals(LocalDate.of(2022,1,10 + i % 20), reader.getLocalDate(2));
+        }
+        assertTrue(reader.next());
+        assertEquals("x".repeat(50), reader.getString(1));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldRejectInvalidNumbers() throws IOException {
+        CsvReader reader = reader("1x,,2021-13-01");
+
+        assertTrue(reader.next());
+        assertThrows(NumberFormatException.class, () -> reader.getInt(0));
+        assertThrows(NumberFormatException.class, () -> reader.getInt(1));
+        assertThrows(NumberFormatException.class, () -> reader.getBigDecimal(1));
+        assertThrows(java.time.DateTimeException.class, () -> reader.getLocalDate(2));
+    }
+
+    @Test
+    void shouldReadSameRecordsWhenMapped() {
+        String path = "./data/reservation-seed-2e72f86c-b8fe-4265-b4f1-304dea8762db.csv";
+        List<String> read = CsvReader.readAll(path, ReadMode.CHANNEL, 5, CsvReaderTest::describe);
+        List<String> mapped = CsvReader.readAll(path, ReadMode.MAPPED, 5, CsvReaderTest::describe);
+
+        assertEquals(12, mapped.size());
+        assertEquals(read, mapped);
+    }
+
+    @Test
+    void shouldMapEmptyFile() throws IOException {
+        Path empty = Files.createTempFile("empty", ".csv");
+        try (CsvReader reader = CsvReader.map(empty.toString())) {
+            assertFalse(reader.next());
+        } finally {
+            Files.delete(empty);
+        }
+    }
+
+    private static String describe(CsvReader fields) {
+        return fields.getInt(0) + " " + fields.getLocalDate(1) + " " + fields.getLocalDate(2)
+                + " " + fields.getInt(3) + " " + fields.getBigDecimal(4);
+    }
+
+    private CsvReader reader(String text) {
+        return new CsvReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,4 +52,37 @@ class GuestFileRepositoryTest {
         assertNull(actual);
     }
 
+    @Test
+    public void shouldFindExistingId(){
+        Guest actual = repo.findById(1);
+        assertNotNull(actual);
+        assertEquals("slomas0@mediafire.com",actual.getEmail());
+    }
+
+    @Test
+    public void shouldNotFindNonExistingId(){
+        Guest actual = repo.findById(-1);
+        assertNull(actual);
+    }
+
+    @Test
+    public void shouldCountHitsMissesAndReloads() throws IOException {
+        repo.findById(1);
+        repo.findByEmail("pkemmis1d@harvard.edu");
+        repo.findByEmail("not_an_email");
+
+        assertEquals(2,repo.getHitCount());
+        assertEquals(1,repo.getMissCount());
+        assertEquals(1,repo.getReloadCount());
+
+        Files.writeString(Paths.get(TEST_FILE_PATH),
+                "1001,New,Guest,newguest@gmail.com,(555) 5555555,NY\n",
+                StandardOpenOption.APPEND);
+
+        Guest actual = repo.findById(1001);
+        assertNotNull(actual);
+        assertEquals("newguest@gmail.com",actual.getEmail());
+        assertEquals(2,repo.getReloadCount());
+    }
+
 }
\ No newline at end of file
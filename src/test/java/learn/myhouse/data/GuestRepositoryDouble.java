@@ -42,4 +42,11 @@ public class GuestRepositoryDouble implements GuestRepository {
                 .filter(i -> i.getEmail().equals(email))
                 .findFirst().orElse(null);
     }
+
+    @Override
+    public Guest findById(int id) {
+        return guests.stream()
+                .filter(i -> i.getId() == id)
+                .findFirst().orElse(null);
+    }
 }
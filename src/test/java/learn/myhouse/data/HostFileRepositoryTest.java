@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -50,4 +51,50 @@ class HostFileRepositoryTest {
         assertNull(actual);
     }
 
+    @Test
+    public void shouldFindEmailIgnoringCase(){
+        Host actual = repo.findByEmail("SMarkee@CafePress.com");
+        assertNotNull(actual);
+        assertEquals("a7a4459e-f511-4599-9481-9de67fbeff51",actual.getId());
+    }
+
+    @Test
+    public void shouldFindExistingId(){
+        Host actual = repo.findById("a7a4459e-f511-4599-9481-9de67fbeff51");
+        assertNotNull(actual);
+        assertEquals("smarkee@cafepress.com",actual.getEmail());
+    }
+
+    @Test
+    public void shouldNotFindNonExistingId(){
+        Host actual = repo.findById("id-does-not-exist");
+        assertNull(actual);
+    }
+
+    @Test
+    public void shouldReadQuotedAddressWithComma() throws IOException {
+        Files.writeString(Paths.get(TEST_FILE_PATH),
+                "quoted-host-id,Quoted,quoted@gmail.com,(555) 5555555,\"1 Main St, Unit 2\",Albany,NY,12201,100,150\n",
+                StandardOpenOption.APPEND);
+
+        Host actual = repo.findByEmail("quoted@gmail.com");
+        assertNotNull(actual);
+        assertEquals("1 Main St, Unit 2",actual.getAddress());
+        assertEquals("Albany",actual.getCity());
+    }
+
+    @Test
+    public void shouldReloadWhenFileChanges() throws IOException {
+        assertNull(repo.findByEmail("newhost@gmail.com"));
+
+        Files.writeString(Paths.get(TEST_FILE_PATH),
+                "new-host-id,Newhost,newhost@gmail.com,(555) 5555555,1 Main St,Albany,NY,12201,100,150\n",
+                StandardOpenOption.APPEND);
+
+        Host actual = repo.findByEmail("newhost@gmail.com");
+        assertNotNull(actual);
+        assertEquals("new-host-id",actual.getId());
+        assertEquals(1001,repo.findAll().size());
+    }
+
 }
\ No newline at end of file
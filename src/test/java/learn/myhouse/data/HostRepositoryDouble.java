@@ -52,4 +52,11 @@ public class HostRepositoryDouble implements HostRepository{
                 .filter(i -> i.getEmail().equals(email))
                 .findFirst().orElse(null);
     }
+
+    @Override
+    public Host findById(String id) {
+        return hosts.stream()
+                .filter(i -> i.getId().equals(id))
+                .findFirst().orElse(null);
+    }
 }
@@ -0,0 +1,152 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledReservationRepositoryTest {
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository files;
+    String journalPath;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Path reservations = Files.createDirectory(directory.resolve("reservations"));
+        copySeed(reservations);
+        files = new ReservationFileRepository(reservations.toString());
+        journalPath = directory.resolve("reservations.journal").toString();
+    }
+
+    @Test
+    void shouldAppendToJournalInsteadOfRewriting() throws DataException {
+        JournaledReservationRepository repo = open(100);
+
+        Reservation added = repo.add(reservation(LocalDate.of(2030,1,1)));
+        assertTrue(repo.deleteById(1, HOST_ID));
+
+        assertEquals(13, added.getId());
+        assertEquals(12, repo.findByHostId(HOST_ID).size());
+        assertEquals(2, repo.getJournal().getEntryCount());
+        assertEquals(0, files.getWriteStatistics().getCount());
+
+        repo.close();
+        assertEquals(1, files.getWriteStatistics().getCount());
+        assertEquals(12, files.findByHostId(HOST_ID).size());
+    }
+
+    @Test
+    void shouldReplayJournalAfterCrash() throws DataException {
+        JournaledReservationRepository crashed = open(100);
+        crashed.add(reservation(LocalDate.of(2030,1,1)));
+        Reservation updated = reservation(LocalDate.of(2031,1,1));
+        updated.setId(2);
+        crashed.update(updated);
+        crashed.deleteById(3, HOST_ID);
+        //never closed, the host file still holds the seed rows
+        assertEquals(12, files.findByHostId(HOST_ID).size());
+
+        JournaledReservationRepository repo = open(100);
+
+        assertEquals(3, repo.getRecoveredCount());
+        List<Reservation> all = files.findByHostId(HOST_ID);
+        assertEquals(12, all.size());
+        assertEquals(LocalDate.of(2031,1,1), all.get(1).getStartDate());
+        assertTrue(all.stream().noneMatch(r -> r.getId() == 3));
+        assertEquals(13, all.get(11).getId());
+        assertEquals(0, repo.getJournal().getEntryCount());
+        repo.close();
+    }
+
+    @Test
+    void shouldReplaySameJournalTwiceWithSameResult() throws DataException, IOException {
+        JournaledReservationRepository crashed = open(100);
+        crashed.add(reservation(LocalDate.of(2030,1,1)));
+        crashed.deleteById(13, HOST_ID);
+        crashed.add(reservation(LocalDate.of(2030,2,1)));
+        crashed.getJournal().sync();
+        Path copy = directory.resolve("journal.copy");
+        Files.copy(Paths.get(journalPath), copy);
+
+        open(100).close();
+        String once = Files.readString(directory.resolve("reservations").resolve(HOST_ID + ".csv"));
+
+        //the host file already holds every entry, replaying them again changes nothing
+        Files.copy(copy, Paths.get(journalPath), StandardCopyOption.REPLACE_EXISTING);
+        JournaledReservationRepository repo = open(100);
+        String twice = Files.readString(directory.resolve("reservations").resolve(HOST_ID + ".csv"));
+
+        assertEquals(3, repo.getRecoveredCount());
+        assertEquals(once, twice);
+        assertEquals(LocalDate.of(2030,2,1), files.findByHostId(HOST_ID).get(12).getStartDate());
+        repo.close();
+    }
+
+    @Test
+    void shouldIgnoreEntryCutShortByCrash() throws DataException, IOException {
+        JournaledReservationRepository crashed = open(100);
+        crashed.add(reservation(LocalDate.of(2030,1,1)));
+        Files.write(Paths.get(journalPath), "P,2e72f86c-b8fe-4265-b4f1-304dea8762db,14,2030-0".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        JournaledReservationRepository repo = open(100);
+
+        assertEquals(1, repo.getRecoveredCount());
+        assertEquals(13, files.findByHostId(HOST_ID).size());
+        assertEquals(0, Files.size(Paths.get(journalPath)));
+        repo.close();
+    }
+
+    @Test
+    void shouldCheckpointWhenJournalIsFull() throws DataException {
+        JournaledReservationRepository repo = open(5);
+
+        for (int i = 0; i < 6; i++) {
+            repo.add(reservation(LocalDate.of(2030,1,1).plusDays(i * 3)));
+        }
+
+        assertEquals(17, files.findByHostId(HOST_ID).size());
+        assertEquals(1, repo.getJournal().getEntryCount());
+        assertEquals(18, repo.findByHostId(HOST_ID).size());
+        repo.close();
+    }
+
+    @Test
+    void shouldNotKeepChangeWhenJournalWriteFails() throws DataException {
+        JournaledReservationRepository repo = open(100);
+        Reservation updated = reservation(LocalDate.of(2031,1,1));
+        updated.setId(2);
+        //a closed journal fails every append
+        repo.getJournal().close();
+
+        assertThrows(DataException.class, () -> repo.add(reservation(LocalDate.of(2030,1,1))));
+        assertThrows(DataException.class, () -> repo.update(updated));
+        assertThrows(DataException.class, () -> repo.deleteById(3, HOST_ID));
+
+        List<Reservation> all = repo.findByHostId(HOST_ID);
+        assertEquals(12, all.size());
+        assertEquals(LocalDate.of(2021,9,10), all.get(1).getStartDate());
+        assertTrue(all.stream().anyMatch(r -> r.getId() == 3));
+        assertThrows(DataException.class, repo::checkpoint);
+        assertEquals(0, files.getWriteStatistics().getCount());
+    }
+
+    private JournaledReservationRepository open(int checkpointEntries) throws DataException {
+        return new JournaledReservationRepository(files, journalPath, FsyncPolicy.NONE, checkpointEntries);
+    }
+}
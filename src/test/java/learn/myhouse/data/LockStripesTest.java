@@ -0,0 +1,35 @@
+package learn.myhouse.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockStripesTest {
+
+    @Test
+    void shouldRoundStripesUpToPowerOfTwo() {
+        assertEquals(16, new LockStripes(1).size());
+        assertEquals(64, new LockStripes(33).size());
+        assertEquals(32, new LockStripes(32).size());
+    }
+
+    @Test
+    void shouldReturnSameLockForSameKey() {
+        LockStripes stripes = new LockStripes();
+        assertSame(stripes.writeLock("2e72f86c-b8fe-4265-b4f1-304dea8762db"),
+                stripes.writeLock(new String("2e72f86c-b8fe-4265-b4f1-304dea8762db")));
+        assertSame(stripes.readLock(null), stripes.readLock(null));
+    }
+
+    @Test
+    void shouldSpreadKeysAcrossStripes() {
+        LockStripes stripes = new LockStripes(16);
+        long distinct = IntStream.range(0, 200)
+                .mapToObj(i -> stripes.writeLock("host-" + i))
+                .distinct()
+                .count();
+        assertEquals(16, distinct);
+    }
+}
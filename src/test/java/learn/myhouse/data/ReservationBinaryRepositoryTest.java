@@ -0,0 +1,168 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationBinaryRepositoryTest {
+    @TempDir
+    Path directory;
+
+    ReservationBinaryRepository repo;
+
+    @BeforeEach
+    void setup() throws IOException, DataException {
+        Path csv = Files.createDirectory(directory.resolve("csv"));
+        copySeed(csv);
+        repo = new ReservationBinaryRepository(Files.createDirectory(directory.resolve("binary")).toString());
+        assertEquals(12, repo.importCsv(csv.toString()));
+    }
+
+    @Test
+    void shouldFindImportedReservations() {
+        List<Reservation> expected = new ReservationFileRepository(directory.resolve("csv").toString())
+                .findByHostId(HOST_ID);
+        List<Reservation> actual = repo.findByHostId(HOST_ID);
+
+        assertEquals(12, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getStartDate(), actual.get(i).getStartDate());
+            assertEquals(expected.get(i).getEndDate(), actual.get(i).getEndDate());
+            assertEquals(expected.get(i).getGuest().getId(), actual.get(i).getGuest().getId());
+            assertEquals(expected.get(i).getTotal(), actual.get(i).getTotal());
+            assertEquals(HOST_ID, actual.get(i).getHost().getId());
+        }
+    }
+
+    @Test
+    void shouldNotFindWithNonExistingHostId() {
+        assertEquals(0, repo.findByHostId("id-does-not-exist").size());
+    }
+
+    @Test
+    void shouldNotReadDamagedFileAsEmpty() throws IOException {
+        Files.write(directory.resolve("binary").resolve("damaged.dat"), new byte[]{1, 2, 3, 4});
+
+        assertThrows(UncheckedIOException.class, () -> repo.findByHostId("damaged"));
+    }
+
+    @Test
+    void shouldReplaceHostFileWithoutLeavingTemporaryFiles() throws DataException, IOException {
+        repo.replaceAll(HOST_ID, repo.findByHostId(HOST_ID).subList(0, 3));
+
+        assertEquals(3, repo.findByHostId(HOST_ID).size());
+        try (Stream<Path> files = Files.list(directory.resolve("binary"))) {
+            assertEquals(List.of(HOST_ID + ".dat"),
+                    files.map(path -> path.getFileName().toString()).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void shouldNotReplaceWithDuplicateOrOversizedIds() throws DataException {
+        List<Reservation> duplicated = repo.findByHostId(HOST_ID).subList(0, 2);
+        duplicated.get(1).setId(duplicated.get(0).getId());
+
+        DataException ex = assertThrows(DataException.class, () -> repo.replaceAll(HOST_ID, duplicated));
+        assertTrue(ex.getMessage().contains("used more than once"));
+        assertEquals(12, repo.findByHostId(HOST_ID).size());
+
+        Reservation oversized = reservation(LocalDate.of(2030,7,1));
+        oversized.setId(Integer.MAX_VALUE);
+        ex = assertThrows(DataException.class, () -> repo.replaceAll(HOST_ID, List.of(oversized)));
+        assertTrue(ex.getMessage().contains("too large"));
+        assertEquals(12, repo.findByHostId(HOST_ID).size());
+    }
+
+    @Test
+    void shouldAddToNextSlot() throws DataException {
+        Reservation actual = repo.add(reservation(LocalDate.of(2030,7,1), new BigDecimal("368.75")));
+
+        assertEquals(13, actual.getId());
+        List<Reservation> all = repo.findByHostId(HOST_ID);
+        assertEquals(13, all.size());
+        assertEquals(new BigDecimal("368.75"), all.get(12).getTotal());
+        assertEquals(LocalDate.of(2030,7,3), all.get(12).getEndDate());
+    }
+
+    @Test
+    void shouldAddToNewHost() throws DataException {
+        Reservation reservation = reservation(LocalDate.of(2030,7,1), BigDecimal.TEN);
+        reservation.getHost().setId("new-host");
+
+        assertEquals(1, repo.add(reservation).getId());
+        assertEquals(1, repo.findByHostId("new-host").size());
+    }
+
+    @Test
+    void shouldUpdateInPlace() throws DataException {
+        Reservation reservation = reservation(LocalDate.of(2030,7,5), BigDecimal.TEN);
+        reservation.setId(4);
+
+        assertTrue(repo.update(reservation));
+        Reservation actual = repo.findByHostId(HOST_ID).get(3);
+        assertEquals(4, actual.getId());
+        assertEquals(LocalDate.of(2030,7,5), actual.getStartDate());
+        assertEquals(BigDecimal.TEN, actual.getTotal());
+    }
+
+    @Test
+    void shouldNotUpdateNonExistingId() throws DataException {
+        Reservation reservation = reservation(LocalDate.of(2030,7,5), BigDecimal.TEN);
+        reservation.setId(500);
+        assertFalse(repo.update(reservation));
+
+        reservation.setId(-1);
+        assertFalse(repo.update(reservation));
+    }
+
+    @Test
+    void shouldDeleteAndNotReuseMiddleId() throws DataException {
+        assertTrue(repo.deleteById(4, HOST_ID));
+        assertFalse(repo.deleteById(4, HOST_ID));
+
+        List<Reservation> all = repo.findByHostId(HOST_ID);
+        assertEquals(11, all.size());
+        assertTrue(all.stream().noneMatch(r -> r.getId() == 4));
+        assertEquals(13, repo.add(reservation(LocalDate.of(2030,7,1), BigDecimal.TEN)).getId());
+    }
+
+    @Test
+    void shouldReuseIdAfterDeletingLast() throws DataException {
+        assertTrue(repo.deleteById(12, HOST_ID));
+        assertEquals(12, repo.add(reservation(LocalDate.of(2030,7,1), BigDecimal.TEN)).getId());
+    }
+
+    @Test
+    void shouldExportToCsv() throws DataException, IOException {
+        Path exported = Files.createDirectory(directory.resolve("exported"));
+
+        assertEquals(12, repo.exportCsv(exported.toString()));
+        assertEquals(Files.readAllLines(Paths.get(SEED_FILE_PATH)),
+                Files.readAllLines(exported.resolve(HOST_ID + ".csv")));
+    }
+
+    @Test
+    void shouldRoundTotalsToCents() {
+        Reservation reservation = reservation(LocalDate.of(2030,7,1), new BigDecimal("10.005"));
+        reservation.setId(1);
+
+        Reservation actual = ReservationBinaryRepository.decode(ReservationBinaryRepository.encode(reservation), HOST_ID);
+        assertEquals(new BigDecimal("10.01"), actual.getTotal());
+    }
+}
@@ -1,10 +1,12 @@
 package learn.myhouse.data;
 
+import learn.myhouse.model.CompactReservation;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
 import learn.myhouse.model.Reservation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -12,10 +14,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class ReservationFileRepositoryTest {
     static final String SEED_FILE_PATH = "./data/reservation-seed-2e72f86c-b8fe-4265-b4f1-304dea8762db.csv";
@@ -39,6 +52,36 @@ class ReservationFileRepositoryTest {
         assertEquals(663,all.get(0).getGuest().getId());
     }
 
+    @Test
+    public void shouldFindCompactWithSameFieldsAsFull(){
+        String hostId = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+        List<Reservation> all = repo.findByHostId(hostId);
+        List<CompactReservation> compact = repo.findCompactByHostId(hostId);
+
+        assertEquals(all.size(), compact.size());
+        for (int i = 0; i < all.size(); i++) {
+            Reservation expected = all.get(i);
+            Reservation actual = compact.get(i).toReservation();
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getStartDate(), actual.getStartDate());
+            assertEquals(expected.getEndDate(), actual.getEndDate());
+            assertEquals(expected.getGuest().getId(), actual.getGuest().getId());
+            assertEquals(hostId, actual.getHost().getId());
+            assertEquals(0, expected.getTotal().compareTo(actual.getTotal()));
+        }
+        assertEquals(0, repo.findCompactByHostId("id-does-not-exist").size());
+    }
+
+    @Test
+    public void shouldFindAllWhenMapped(){
+        ReservationFileRepository mapped = new ReservationFileRepository(TEST_DIR_PATH,
+                FsyncPolicy.NONE, ReadMode.MAPPED);
+        List<Reservation> all = mapped.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        assertEquals(12,all.size());
+        assertEquals(663,all.get(0).getGuest().getId());
+        assertEquals(0,mapped.findByHostId("id-does-not-exist").size());
+    }
+
     @Test
     public void shouldNotFindWithNonExistingHostId(){
         List<Reservation> all = repo.findByHostId("id-does-not-exist");
@@ -70,6 +113,63 @@ class ReservationFileRepositoryTest {
         assertEquals(13,all.size());
     }
 
+    @Test
+    public void shouldAddAllWithConsecutiveIds() throws DataException {
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        List<Reservation> added = repo.addAll(host.getId(), List.of(
+                new Reservation(LocalDate.of(2024,7,1), LocalDate.of(2024,7,3), guest, host, BigDecimal.TEN),
+                new Reservation(LocalDate.of(2024,8,1), LocalDate.of(2024,8,3), guest, host, BigDecimal.ONE)));
+        List<Reservation> all = repo.findByHostId(host.getId());
+
+        assertEquals(added.get(0).getId() + 1, added.get(1).getId());
+        assertEquals(14, all.size());
+        assertEquals(BigDecimal.ONE, all.get(13).getTotal());
+    }
+
+    @Test
+    public void shouldAppendWithoutRewritingExistingLines() throws DataException, IOException {
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        Reservation first = repo.add(new Reservation(LocalDate.of(2024,7,1),
+                LocalDate.of(2024,7,3),guest,host,BigDecimal.TEN));
+        Reservation second = repo.add(new Reservation(LocalDate.of(2024,8,1),
+                LocalDate.of(2024,8,3),guest,host,BigDecimal.TEN));
+
+        assertEquals(13,first.getId());
+        assertEquals(14,second.getId());
+        assertEquals(14,repo.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+
+        //the seed rows are left exactly as they were
+        String seed = Files.readString(Paths.get(SEED_FILE_PATH));
+        String actual = Files.readString(Paths.get(TEST_FILE_PATH));
+        assertTrue(actual.startsWith(seed));
+    }
+
+    @Test
+    public void shouldReadIdsAgainWhenFileChangesOutsideRepository() throws DataException, IOException {
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        repo.add(new Reservation(LocalDate.of(2024,7,1),
+                LocalDate.of(2024,7,3),guest,host,BigDecimal.TEN));
+        setup(); //restoring the seed file behind the repository's back
+
+        Reservation actual = repo.add(new Reservation(LocalDate.of(2024,8,1),
+                LocalDate.of(2024,8,3),guest,host,BigDecimal.TEN));
+
+        assertEquals(13,actual.getId());
+        assertEquals(13,repo.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+    }
+
     @Test
     public void shouldNotBreakWhenAddNull() throws DataException {
         Reservation actual = repo.add(null);
@@ -142,4 +242,113 @@ class ReservationFileRepositoryTest {
         assertEquals(12,allAfter.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldNotLeaveTemporaryFilesAfterRewrite() throws DataException, IOException {
+        assertTrue(repo.deleteById(11,"2e72f86c-b8fe-4265-b4f1-304dea8762db"));
+
+        try (Stream<Path> files = Files.list(Paths.get(TEST_DIR_PATH))) {
+            assertEquals(0, files.filter(p -> p.toString().endsWith(".tmp")).count());
+        }
+        assertEquals(11,repo.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+    }
+
+    @Test
+    public void shouldUpdateWithFsyncPerWrite() throws DataException {
+        ReservationFileRepository durable = new ReservationFileRepository(TEST_DIR_PATH, FsyncPolicy.PER_WRITE);
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        Reservation reservation = new Reservation(LocalDate.of(2024,7,5),
+                LocalDate.of(2024,7,10),guest,host,BigDecimal.TEN);
+        reservation.setId(12);
+
+        assertTrue(durable.update(reservation));
+        assertEquals(LocalDate.of(2024,7,5),
+                durable.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").get(11).getStartDate());
+        assertEquals(1,durable.getWriteStatistics().getCount());
+    }
+
+    @Test
+    public void shouldKeepPermissionsWhenRewriting(@TempDir Path directory) throws IOException, DataException {
+        Path file = directory.resolve("2e72f86c-b8fe-4265-b4f1-304dea8762db.csv");
+        Files.copy(Paths.get(SEED_FILE_PATH), file);
+        assumeTrue(Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(file, permissions);
+
+        ReservationFileRepository batched = new ReservationFileRepository(directory.toString(), FsyncPolicy.BATCHED);
+        assertTrue(batched.deleteById(1, "2e72f86c-b8fe-4265-b4f1-304dea8762db"));
+
+        assertEquals(permissions, Files.getPosixFilePermissions(file));
+        assertEquals(11, batched.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void shouldRecordWritesWithBatchedFsync() throws DataException {
+        ReservationFileRepository batched = new ReservationFileRepository(TEST_DIR_PATH, FsyncPolicy.BATCHED);
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        batched.add(new Reservation(LocalDate.of(2024,7,1),
+                LocalDate.of(2024,7,3),guest,host,BigDecimal.TEN));
+        batched.deleteById(1,"2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        batched.sync();
+
+        assertEquals(2,batched.getWriteStatistics().getCount());
+        assertTrue(batched.getWriteStatistics().getMaxNanos() > 0);
+        assertEquals(12,batched.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+    }
+
+    @Test
+    public void shouldAssignUniqueIdsWhenAddingConcurrently() throws Exception {
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = new Guest();
+        guest.setId(10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Reservation>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            LocalDate start = LocalDate.of(2030,1,1).plusDays(i * 3);
+            futures.add(executor.submit(() -> repo.add(
+                    new Reservation(start,start.plusDays(2),guest,host,BigDecimal.TEN))));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Future<Reservation> future : futures) {
+            ids.add(future.get().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(40,ids.size());
+        assertEquals(52,repo.findByHostId("2e72f86c-b8fe-4265-b4f1-304dea8762db").size());
+    }
+
+    @Test
+    public void shouldLoadAllHostsInParallel(@TempDir Path directory) throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Files.copy(Paths.get(SEED_FILE_PATH), directory.resolve("host-" + i + ".csv"));
+        }
+        Files.copy(Paths.get(SEED_FILE_PATH), directory.resolve("host-0.1.tmp"));
+
+        ReservationSnapshot snapshot = new ReservationFileRepository(directory.toString()).loadAll(4);
+
+        assertEquals(10, snapshot.getFileCount());
+        assertEquals(120, snapshot.getRowCount());
+        assertEquals(4, snapshot.getParallelism());
+        assertEquals(12, snapshot.findByHostId("host-7").size());
+        assertEquals("host-7", snapshot.findByHostId("host-7").get(0).getHost().getId());
+        assertEquals(0, snapshot.findByHostId("host-0.1").size());
+        assertTrue(snapshot.getRowsPerSecond() > 0);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.findByHostId("host-1").clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getReservations().remove("host-1"));
+    }
+
+}
@@ -0,0 +1,55 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Seed data and reservations shared by the tests that work on a copy of a
+ * host's reservation file
+ */
+public class ReservationFixtures {
+    public static final String SEED_FILE_PATH = "./data/reservation-seed-2e72f86c-b8fe-4265-b4f1-304dea8762db.csv";
+    public static final String HOST_ID = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+
+    private ReservationFixtures() {
+    }
+
+    /**
+     * Method that copies the seed host file into a directory under the host's ID
+     * @param directory
+     * @return the copied file
+     * @throws IOException
+     */
+    public static Path copySeed(Path directory) throws IOException {
+        return Files.copy(Paths.get(SEED_FILE_PATH), directory.resolve(HOST_ID + ".csv"));
+    }
+
+    /**
+     * Method that creates a two night reservation for the seed host and guest 10
+     * @param start
+     * @return the reservation, without an ID
+     */
+    public static Reservation reservation(LocalDate start) {
+        return reservation(start, start.plusDays(2), BigDecimal.TEN);
+    }
+
+    public static Reservation reservation(LocalDate start, BigDecimal total) {
+        return reservation(start, start.plusDays(2), total);
+    }
+
+    public static Reservation reservation(LocalDate start, LocalDate end, BigDecimal total) {
+        Host host = new Host();
+        host.setId(HOST_ID);
+        Guest guest = new Guest();
+        guest.setId(10);
+        return new Reservation(start, end, guest, host, total);
+    }
+}
@@ -0,0 +1,106 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIndexTest {
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository repository;
+    ReservationIndex index;
+
+    @BeforeEach
+    void setup() throws IOException {
+        copySeed(directory);
+        Files.copy(Paths.get(SEED_FILE_PATH), directory.resolve("other-host.csv"));
+        //left behind by an interrupted rewrite
+        Files.copy(Paths.get(SEED_FILE_PATH), directory.resolve(HOST_ID + ".123.tmp"));
+        repository = new ReservationFileRepository(directory.toString());
+        index = new ReservationIndex(repository);
+    }
+
+    @Test
+    void shouldIndexEveryHostFile() {
+        assertEquals(24, index.size());
+        assertEquals(List.of("2e72f86c-b8fe-4265-b4f1-304dea8762db", "other-host"), repository.findHostIds());
+    }
+
+    @Test
+    void shouldFindByGuestId() {
+        List<Reservation> actual = index.findByGuestId(663);
+
+        assertEquals(2, actual.size());
+        assertEquals(LocalDate.of(2021,10,12), actual.get(0).getStartDate());
+        assertEquals(0, index.findByGuestId(-1).size());
+    }
+
+    @Test
+    void shouldFindOverlappingIncludingTouchingDays() {
+        //stay 1 ends 2021-10-14, stay 3 runs 2021-10-02 to 2021-10-04
+        List<Reservation> actual = index.findOverlapping(LocalDate.of(2021,10,4), LocalDate.of(2021,10,12));
+
+        assertEquals(4, actual.size());
+        assertEquals(3, actual.get(0).getId());
+        assertEquals(1, actual.get(3).getId());
+        assertEquals(0, index.findOverlapping(LocalDate.of(2021,10,5), LocalDate.of(2021,10,11)).size());
+        assertEquals(0, index.findOverlapping(LocalDate.of(2021,10,12), LocalDate.of(2021,10,1)).size());
+    }
+
+    @Test
+    void shouldFindLongStayStartingWellBeforeRange() throws DataException {
+        Reservation longStay = reservation(LocalDate.of(2029,1,1), LocalDate.of(2030,12,31), BigDecimal.TEN);
+        repository.add(longStay);
+        repository.add(reservation(LocalDate.of(2030,6,1), LocalDate.of(2030,6,3), BigDecimal.ONE));
+
+        List<Reservation> actual = index.findOverlapping(LocalDate.of(2030,6,3), LocalDate.of(2030,6,4));
+
+        assertEquals(2, actual.size());
+        assertEquals(LocalDate.of(2029,1,1), actual.get(0).getStartDate());
+        assertEquals(1, index.findOverlapping(LocalDate.of(2030,12,31), LocalDate.of(2031,1,1)).size());
+        assertEquals(4, index.findOverlapping(LocalDate.of(2021,10,4), LocalDate.of(2021,10,12)).size());
+    }
+
+    @Test
+    void shouldFollowRepositoryChanges() throws DataException {
+        Reservation added = repository.add(reservation(LocalDate.of(2030,1,1)));
+        assertEquals(1, index.findOverlapping(LocalDate.of(2030,1,2), LocalDate.of(2030,1,2)).size());
+
+        added.setStartDate(LocalDate.of(2030,2,1));
+        added.setEndDate(LocalDate.of(2030,2,3));
+        repository.update(added);
+        assertEquals(0, index.findOverlapping(LocalDate.of(2030,1,2), LocalDate.of(2030,1,2)).size());
+        assertEquals(1, index.findByGuestId(10).size());
+
+        repository.deleteById(1, HOST_ID);
+        assertEquals(1, index.findByGuestId(663).size());
+        assertEquals(24, index.size());
+    }
+
+    @Test
+    void shouldFollowRewritesFromWriteBehind() throws DataException {
+        WriteBehindReservationRepository buffered = new WriteBehindReservationRepository(repository, 1000, 0);
+        buffered.add(reservation(LocalDate.of(2030,1,1)));
+        buffered.deleteById(2, HOST_ID);
+        assertEquals(24, index.size());
+
+        buffered.close();
+
+        assertEquals(24, index.size());
+        assertEquals(1, index.findByGuestId(136).size());
+        assertEquals(1, index.findOverlapping(LocalDate.of(2030,1,1), LocalDate.of(2030,1,1)).size());
+    }
+}
@@ -0,0 +1,107 @@
+package learn.myhouse.data;
+
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindReservationRepositoryTest {
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository files;
+
+    @BeforeEach
+    void setup() throws IOException {
+        copySeed(directory);
+        files = new ReservationFileRepository(directory.toString());
+    }
+
+    @Test
+    void shouldCoalesceChangesIntoOneRewrite() throws DataException {
+        WriteBehindReservationRepository repo = new WriteBehindReservationRepository(files, 1000, 0);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(13 + i, repo.add(reservation(LocalDate.of(2030,1,1).plusDays(i * 3))).getId());
+        }
+        Reservation updated = reservation(LocalDate.of(2031,1,1));
+        updated.setId(13);
+        assertTrue(repo.update(updated));
+        assertTrue(repo.deleteById(1, HOST_ID));
+
+        //nothing has been written yet but reads see the changes
+        assertEquals(12, files.findByHostId(HOST_ID).size());
+        assertEquals(31, repo.findByHostId(HOST_ID).size());
+        assertEquals(22, repo.getPendingCount());
+
+        repo.close();
+
+        List<Reservation> all = files.findByHostId(HOST_ID);
+        assertEquals(31, all.size());
+        assertEquals(LocalDate.of(2031,1,1), all.stream().filter(r -> r.getId() == 13).findFirst().get().getStartDate());
+        assertEquals(1, repo.getRewriteCount());
+        assertEquals(1, files.getWriteStatistics().getCount());
+        assertEquals(0, repo.getPendingCount());
+    }
+
+    @Test
+    void shouldFlushWhenSizeThresholdReached() throws DataException {
+        WriteBehindReservationRepository repo = new WriteBehindReservationRepository(files, 5, 0);
+
+        for (int i = 0; i < 12; i++) {
+            repo.add(reservation(LocalDate.of(2030,1,1).plusDays(i * 3)));
+        }
+
+        assertEquals(2, repo.getRewriteCount());
+        assertEquals(22, files.findByHostId(HOST_ID).size());
+        assertEquals(24, repo.findByHostId(HOST_ID).size());
+    }
+
+    @Test
+    void shouldFlushWhenDurabilityWindowPasses() throws DataException, InterruptedException {
+        WriteBehindReservationRepository repo = new WriteBehindReservationRepository(files, 1000, 20);
+        repo.add(reservation(LocalDate.of(2030,1,1)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (repo.getRewriteCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, repo.getRewriteCount());
+        assertEquals(13, files.findByHostId(HOST_ID).size());
+        repo.close();
+    }
+
+    @Test
+    void shouldNotChangeBufferThroughReturnedObjects() throws DataException {
+        WriteBehindReservationRepository repo = new WriteBehindReservationRepository(files, 1000, 0);
+        repo.deleteById(12, HOST_ID);
+
+        repo.findByHostId(HOST_ID).get(0).setStartDate(LocalDate.of(2040,1,1));
+        Reservation added = repo.add(reservation(LocalDate.of(2030,1,1)));
+        added.setStartDate(LocalDate.of(2040,1,1));
+
+        assertEquals(12, added.getId());
+        assertEquals(LocalDate.of(2021,10,12), repo.findByHostId(HOST_ID).get(0).getStartDate());
+        assertEquals(LocalDate.of(2030,1,1), repo.findByHostId(HOST_ID).get(11).getStartDate());
+    }
+
+    @Test
+    void shouldNotUpdateOrDeleteMissingId() throws DataException {
+        WriteBehindReservationRepository repo = new WriteBehindReservationRepository(files, 1000, 0);
+        Reservation reservation = reservation(LocalDate.of(2030,1,1));
+        reservation.setId(500);
+
+        assertFalse(repo.update(reservation));
+        assertFalse(repo.deleteById(500, HOST_ID));
+        assertEquals(0, repo.getPendingCount());
+    }
+}
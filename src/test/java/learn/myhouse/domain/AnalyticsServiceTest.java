@@ -0,0 +1,136 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.Guest;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsServiceTest {
+    static final YearMonth JANUARY = YearMonth.of(2031, 1);
+    static final YearMonth FEBRUARY = YearMonth.of(2031, 2);
+
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository repository;
+    HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+    AnalyticsService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        //Thursday to Sunday: a weekday night in January, then a Friday in January and a Saturday in February
+        Files.write(directory.resolve(HOST_ID + ".csv"),
+                List.of("id,start_date,end_date,guest_id,total", "1,2031-01-30,2031-02-02,1,100.01"));
+        repository = new ReservationFileRepository(directory.toString());
+        service = new AnalyticsService(repository, hostRepository, new PricingEngine());
+        repository.addListener(service);
+    }
+
+    @Test
+    void shouldShareRevenueByEachNightsRate() {
+        //the host charges 200 on weekdays and 250 on weekends: 10001 cents in 200:250:250
+        AnalyticsReport report = service.report(JANUARY, FEBRUARY);
+
+        assertEquals(1, report.getTotal().getReservations());
+        assertEquals(3, report.getTotal().getNights());
+        assertEquals(new BigDecimal("100.01"), report.getTotal().getRevenue());
+
+        assertEquals(1, report.getByMonth().get(JANUARY).getReservations());
+        assertEquals(2, report.getByMonth().get(JANUARY).getNights());
+        assertEquals(2858 + 3572, report.getByMonth().get(JANUARY).getRevenueCents());
+        assertEquals(0, report.getByMonth().get(FEBRUARY).getReservations());
+        assertEquals(3571, report.getByMonth().get(FEBRUARY).getRevenueCents());
+
+        assertEquals(1, report.getByDayType().get(AnalyticsReport.WEEKDAY).getNights());
+        assertEquals(2858, report.getByDayType().get(AnalyticsReport.WEEKDAY).getRevenueCents());
+        assertEquals(2, report.getByDayType().get(AnalyticsReport.WEEKEND).getNights());
+        assertEquals(3572 + 3571, report.getByDayType().get(AnalyticsReport.WEEKEND).getRevenueCents());
+
+        assertEquals(3, report.getByState().get("ID").getNights());
+        assertEquals(3, report.getByCity().get("Boise, ID").getNights());
+        assertEquals(0, report.getByState().get("TX").getNights());
+    }
+
+    @Test
+    void shouldWorkOutOccupancyFromEveryHost() {
+        AnalyticsReport report = service.report(JANUARY, FEBRUARY);
+
+        RevenueTotals host = report.getByHost().get(HOST_ID);
+        assertEquals(59, host.getAvailableNights());
+        assertEquals(3.0 / 59, host.getOccupancyRate(), 1e-9);
+        assertEquals(1000, report.getByHost().size());
+        assertEquals(1000L * 59, report.getTotal().getAvailableNights());
+        assertEquals(1000L * 31, report.getByMonth().get(JANUARY).getAvailableNights());
+        //seventeen Friday and Saturday nights in January and February 2031
+        assertEquals(1000L * 17, report.getByDayType().get(AnalyticsReport.WEEKEND).getAvailableNights());
+    }
+
+    @Test
+    void shouldOnlyCountMonthsInRange() {
+        AnalyticsReport report = service.report(FEBRUARY, FEBRUARY);
+
+        assertEquals(0, report.getTotal().getReservations());
+        assertEquals(1, report.getTotal().getNights());
+        assertEquals(3571, report.getTotal().getRevenueCents());
+        assertEquals(List.of(FEBRUARY), List.copyOf(report.getByMonth().keySet()));
+        assertThrows(IllegalArgumentException.class, () -> service.report(FEBRUARY, JANUARY));
+    }
+
+    @Test
+    void shouldReadHostAgainOnlyWhenFileChanges() throws DataException, IOException {
+        Host rated = hostRepository.findById(HOST_ID);
+        AnalyticsService.HostHistory first = service.getHistory(HOST_ID, rated);
+        assertSame(first, service.getHistory(HOST_ID, rated));
+
+        Host host = new Host();
+        host.setId(HOST_ID);
+        Guest guest = new Guest();
+        guest.setId(2);
+        repository.add(new Reservation(LocalDate.of(2031,1,5), LocalDate.of(2031,1,6), guest, host, BigDecimal.TEN));
+        AnalyticsService.HostHistory added = service.getHistory(HOST_ID, rated);
+        assertNotSame(first, added);
+        assertEquals(3, service.report(JANUARY, JANUARY).getTotal().getNights());
+
+        //a change made outside the repository is found by the file's size
+        Files.write(directory.resolve(HOST_ID + ".csv"), List.of("3,2031-01-10,2031-01-12,3,20"),
+                StandardOpenOption.APPEND);
+        AnalyticsService.HostHistory appended = service.getHistory(HOST_ID, rated);
+        assertNotSame(added, appended);
+        assertEquals(5, service.report(JANUARY, JANUARY).getTotal().getNights());
+
+        //new rates share the totals out differently
+        Host repriced = new Host();
+        repriced.setId(HOST_ID);
+        repriced.setStandardRate(new BigDecimal("100"));
+        repriced.setWeekendRate(new BigDecimal("300"));
+        assertNotSame(appended, service.getHistory(HOST_ID, repriced));
+    }
+
+    @Test
+    void shouldShareRevenueEvenlyWithoutRates() throws IOException {
+        Files.write(directory.resolve("unlisted-host.csv"),
+                List.of("id,start_date,end_date,guest_id,total", "1,2031-01-30,2031-02-02,1,100.01"));
+
+        AnalyticsReport report = service.report(FEBRUARY, FEBRUARY);
+
+        assertEquals(3333, report.getByHost().get("unlisted-host").getRevenueCents());
+        assertEquals(3333, report.getByState().get("unknown").getRevenueCents());
+    }
+}
@@ -0,0 +1,119 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.CompactReservation;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityServiceTest {
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository repository;
+    AvailabilityService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        copySeed(directory);
+        repository = new ReservationFileRepository(directory.toString());
+        service = new AvailabilityService(repository, new HostFileRepository("./data/hosts-test.csv"));
+        repository.addListener(service);
+    }
+
+    @Test
+    void shouldTreatTouchingDatesAsTaken() {
+        assertFalse(service.isAvailable(HOST_ID, LocalDate.of(2021,10,4), LocalDate.of(2021,10,6)));
+        assertFalse(service.isAvailable(HOST_ID, LocalDate.of(2021,10,8), LocalDate.of(2021,10,12)));
+        assertTrue(service.isAvailable(HOST_ID, LocalDate.of(2021,10,5), LocalDate.of(2021,10,11)));
+        assertTrue(service.isAvailable("no-reservations", LocalDate.of(2021,10,1), LocalDate.of(2021,12,1)));
+    }
+
+    @Test
+    void shouldFindSeparateFreeWindows() {
+        List<LocalDate> windows = service.findFreeWindows(HOST_ID, LocalDate.of(2021,10,1), 2, 3);
+
+        assertEquals(List.of(LocalDate.of(2021,10,5), LocalDate.of(2021,10,8), LocalDate.of(2021,10,15)), windows);
+    }
+
+    @Test
+    void shouldFindOtherHostsWhenOneIsTaken() {
+        List<Host> free = service.findAvailableHosts(LocalDate.of(2021,10,12), LocalDate.of(2021,10,13));
+
+        assertEquals(999, free.size());
+        assertTrue(free.stream().noneMatch(h -> h.getId().equals(HOST_ID)));
+    }
+
+    @Test
+    void shouldFollowChangesToHostFile() throws DataException {
+        LocalDate start = LocalDate.of(2021,10,6);
+        assertTrue(service.isAvailable(HOST_ID, start, start.plusDays(2)));
+
+        Reservation reservation = repository.add(reservation(start));
+        assertFalse(service.isAvailable(HOST_ID, start, start.plusDays(2)));
+
+        reservation.setStartDate(start.plusDays(30));
+        reservation.setEndDate(start.plusDays(31));
+        repository.update(reservation);
+        assertTrue(service.isAvailable(HOST_ID, start, start.plusDays(2)));
+        assertFalse(service.isAvailable(HOST_ID, start.plusDays(31), start.plusDays(40)));
+
+        repository.deleteById(1, HOST_ID);
+        assertTrue(service.isAvailable(HOST_ID, LocalDate.of(2021,10,12), LocalDate.of(2021,10,14)));
+    }
+
+    @Test
+    void shouldLoadMissingCalendarsOffCommonPool() {
+        Map<String, String> readers = new ConcurrentHashMap<>();
+        ReservationFileRepository recording = new ReservationFileRepository(directory.toString()) {
+            @Override
+            public List<CompactReservation> findCompactByHostId(String hostId) {
+                assertNull(readers.put(hostId, Thread.currentThread().getName()), "read twice: " + hostId);
+                return super.findCompactByHostId(hostId);
+            }
+        };
+        service = new AvailabilityService(recording, new HostFileRepository("./data/hosts-test.csv"));
+
+        List<Host> free = service.findAvailableHosts(LocalDate.of(2021,10,12), LocalDate.of(2021,10,13));
+
+        assertEquals(999, free.size());
+        assertEquals(1000, readers.size());
+        assertTrue(readers.values().stream().noneMatch(name -> name.startsWith("ForkJoinPool")));
+
+        service.loadCalendars(List.of(HOST_ID));
+        assertFalse(service.isAvailable(HOST_ID, LocalDate.of(2021,10,12), LocalDate.of(2021,10,13)));
+        assertEquals(1000, readers.size());
+    }
+
+    @Test
+    void shouldReportFailedCalendarLoad() {
+        ReservationFileRepository failing = new ReservationFileRepository(directory.toString()) {
+            @Override
+            public List<CompactReservation> findCompactByHostId(String hostId) {
+                if (hostId.equals(HOST_ID)) {
+                    throw new IllegalStateException("damaged");
+                }
+                return super.findCompactByHostId(hostId);
+            }
+        };
+        service = new AvailabilityService(failing, new HostFileRepository("./data/hosts-test.csv"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> service.loadCalendars(List.of("no-reservations", HOST_ID)));
+        assertEquals("damaged", ex.getMessage());
+    }
+}
@@ -0,0 +1,58 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.CompactReservation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostCalendarTest {
+    HostCalendar calendar = HostCalendar.of(List.of(
+            new CompactReservation(1, 100, 102, 1, "host", 0),
+            new CompactReservation(2, 120, 200, 1, "host", 0),
+            new CompactReservation(3, -70, -60, 1, "host", 0)));
+
+    @Test
+    void shouldIncludeFirstAndLastDays() {
+        assertFalse(calendar.isFree(95, 100));
+        assertFalse(calendar.isFree(102, 110));
+        assertTrue(calendar.isFree(103, 119));
+        assertTrue(calendar.isFree(201, 5000));
+        assertFalse(calendar.isFree(-61, -50));
+        assertTrue(calendar.isFree(-59, 99));
+        assertEquals(3 + 81 + 11, calendar.getOccupiedDays());
+    }
+
+    @Test
+    void shouldFindNextFreeRunAcrossWords() {
+        assertEquals(90, calendar.nextFree(90, 10));
+        assertEquals(103, calendar.nextFree(95, 10));
+        assertEquals(201, calendar.nextFree(95, 20));
+        assertEquals(201, calendar.nextFree(130, 1));
+        assertEquals(-59, calendar.nextFree(-70, 5));
+    }
+
+    @Test
+    void shouldFreeDaysOfRemovedOrMovedStay() {
+        calendar.put(2, 150, 151);
+
+        assertTrue(calendar.isFree(120, 149));
+        assertFalse(calendar.isFree(151, 151));
+
+        assertTrue(calendar.remove(2));
+        assertFalse(calendar.remove(2));
+        assertTrue(calendar.isFree(103, 1000));
+    }
+
+    @Test
+    void shouldKeepDaysSharedWithAnotherStay() {
+        calendar.put(4, 101, 110);
+
+        calendar.remove(4);
+
+        assertFalse(calendar.isFree(101, 101));
+        assertFalse(calendar.isFree(102, 102));
+        assertTrue(calendar.isFree(103, 110));
+    }
+}
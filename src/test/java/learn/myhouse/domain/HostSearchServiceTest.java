@@ -0,0 +1,83 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.HostQuote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostSearchServiceTest {
+    //Amarillo host with a stay from 2031-01-04 to 2031-01-06
+    static final String TAKEN_HOST_ID = "fe24d651-697d-4c4f-9448-eee68b754846";
+    static final LocalDate START = LocalDate.of(2031,1,1);
+    static final LocalDate END = LocalDate.of(2031,1,4);
+
+    @TempDir
+    Path directory;
+
+    HostSearchService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Files.writeString(directory.resolve(TAKEN_HOST_ID + ".csv"),
+                "id,start_date,end_date,guest_id,total\n1,2031-01-04,2031-01-06,1,500\n");
+        ReservationFileRepository reservations = new ReservationFileRepository(directory.toString());
+        HostFileRepository hosts = new HostFileRepository("./data/hosts-test.csv");
+        service = new HostSearchService(hosts, new AvailabilityService(reservations, hosts), new PricingEngine());
+    }
+
+    @Test
+    void shouldFindFreeHostsInCityCheapestFirst() {
+        Result<List<HostQuote>> result = service.search(START, END, "tx", " Amarillo ", "");
+
+        assertTrue(result.isSuccess());
+        List<HostQuote> quotes = result.getPayload();
+        assertEquals(5, quotes.size());
+        assertTrue(quotes.stream().noneMatch(q -> q.getHost().getId().equals(TAKEN_HOST_ID)));
+        assertEquals("Loftus", quotes.get(0).getHost().getLastName());
+        //Wednesday to Saturday, one weekend night
+        assertEquals(new BigDecimal("871"), quotes.get(0).getTotal());
+        for (int i = 1; i < quotes.size(); i++) {
+            assertTrue(quotes.get(i - 1).getTotal().compareTo(quotes.get(i).getTotal()) <= 0);
+        }
+    }
+
+    @Test
+    void shouldFindTakenHostForOtherDates() {
+        Result<List<HostQuote>> result = service.search(END.plusDays(3), END.plusDays(5), null, "Amarillo", "79159");
+
+        assertEquals(2, result.getPayload().size());
+    }
+
+    @Test
+    void shouldSearchEveryHostWithoutLocation() {
+        Result<List<HostQuote>> result = service.search(START, END, null, null, null);
+
+        assertEquals(999, result.getPayload().size());
+    }
+
+    @Test
+    void shouldNotMatchUnknownOrConflictingLocation() {
+        assertEquals(0, service.search(START, END, "ZZ", null, null).getPayload().size());
+        assertEquals(0, service.search(START, END, "CA", "Amarillo", null).getPayload().size());
+    }
+
+    @Test
+    void shouldNotSearchWithInvalidDates() {
+        Result<List<HostQuote>> result = service.search(END, START, "TX", null, null);
+
+        assertFalse(result.isSuccess());
+        assertEquals("start date must be before end date", result.getErrorMessages().get(0));
+        assertFalse(service.search(LocalDate.now().minusDays(1), END, "TX", null, null).isSuccess());
+    }
+}
@@ -0,0 +1,68 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.Host;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    PricingEngine engine = new PricingEngine();
+    Host host;
+
+    @BeforeEach
+    void setup(){
+        host = new Host();
+        host.setStandardRate(new BigDecimal("295"));
+        host.setWeekendRate(new BigDecimal("368.75"));
+    }
+
+    @Test
+    void shouldChargeWeekendRateForFridayAndSaturday(){
+        //Thursday to Monday: Thursday, Friday, Saturday and Sunday nights
+        BigDecimal actual = engine.getTotal(LocalDate.of(2030,1,3), LocalDate.of(2030,1,7), host);
+        assertEquals(new BigDecimal("1327.50"), actual);
+    }
+
+    @Test
+    void shouldBeZeroWhenEndIsNotAfterStart(){
+        assertEquals(0, BigDecimal.ZERO.compareTo(engine.getTotal(LocalDate.of(2030,1,3), LocalDate.of(2030,1,3), host)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(engine.getTotal(LocalDate.of(2030,1,3), LocalDate.of(2030,1,1), host)));
+    }
+
+    @Test
+    void shouldMatchCountingEachNight(){
+        LocalDate first = LocalDate.of(2030,1,1);
+        for(int offset = 0; offset < 7; offset++){
+            LocalDate start = first.plusDays(offset);
+            for(int nights = -2; nights < 60; nights++){
+                LocalDate end = start.plusDays(nights);
+                BigDecimal expected = totalByEachNight(start, end, host);
+                BigDecimal actual = engine.getTotal(start, end, host);
+                assertEquals(expected, actual, start + " to " + end); //same value and scale
+            }
+        }
+    }
+
+    /**
+     * Reference calculation that visits each night of the stay
+     */
+    private BigDecimal totalByEachNight(LocalDate startDate, LocalDate endDate, Host host){
+        BigDecimal weekDay = BigDecimal.ZERO;
+        BigDecimal weekEnd = BigDecimal.ZERO;
+        for(LocalDate night = startDate; night.isBefore(endDate); night = night.plusDays(1)){
+            if(night.getDayOfWeek() == DayOfWeek.FRIDAY || night.getDayOfWeek() == DayOfWeek.SATURDAY){
+                weekEnd = weekEnd.add(BigDecimal.ONE);
+            }else{
+                weekDay = weekDay.add(BigDecimal.ONE);
+            }
+        }
+        return weekDay.multiply(host.getStandardRate())
+                .add(weekEnd.multiply(host.getWeekendRate()));
+    }
+}
@@ -0,0 +1,75 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationExporterTest {
+    @TempDir
+    Path directory;
+
+    ReservationExporter exporter;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Path reservations = Files.createDirectory(directory.resolve("reservations"));
+        copySeed(reservations);
+        //a host that is not in the hosts file, with a guest that is not in the guests file
+        Files.write(reservations.resolve("unknown-host.csv"),
+                List.of("id,start_date,end_date,guest_id,total", "1,2022-01-01,2022-01-03,99999,250.5"));
+        exporter = new ReservationExporter(new ReservationFileRepository(reservations.toString()),
+                new HostFileRepository("./data/hosts-test.csv"), new GuestFileRepository("./data/guests-test.csv"));
+    }
+
+    @Test
+    void shouldExportJoinedRowsAsCsv() throws IOException, DataException {
+        Path output = directory.resolve("export.csv");
+
+        ExportSummary summary = exporter.export(output.toString());
+        List<String> lines = Files.readAllLines(output);
+
+        assertEquals(2, summary.getFileCount());
+        assertEquals(13, summary.getRowCount());
+        assertEquals(Files.size(output), summary.getByteCount());
+        assertEquals(14, lines.size());
+        assertEquals(String.join(",", ReservationExporter.COLUMNS), lines.get(0));
+        assertEquals("1," + HOST_ID + ",de Clerk,kdeclerkdc@sitemeter.com,Boise,ID,83757,663,Wallis,Kuhl,"
+                + "wkuhlie@patch.com,NC,2021-10-12,2021-10-14,2,400", lines.get(1));
+        assertEquals("1,unknown-host,,,,,,99999,,,,,2022-01-01,2022-01-03,2,250.5", lines.get(13));
+    }
+
+    @Test
+    void shouldExportCompressedJsonLines() throws IOException, DataException {
+        Path output = directory.resolve("export.jsonl.gz");
+
+        ExportSummary summary = exporter.export(output.toString());
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(output)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+
+        assertEquals(13, summary.getRowCount());
+        assertEquals(13, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"reservation_id\":1,\"host_id\":\"" + HOST_ID + "\",\"host_last_name\":\"de Clerk\""));
+        assertTrue(lines.get(0).endsWith("\"nights\":2,\"total\":400}"));
+        assertTrue(lines.get(12).contains("\"host_last_name\":null"));
+    }
+}
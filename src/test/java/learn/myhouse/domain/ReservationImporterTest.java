@@ -0,0 +1,140 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.data.DataException;
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationImporterTest {
+    static final String HOST_EMAIL = "kdeclerkdc@sitemeter.com";
+    static final String GUEST_EMAIL = "slomas0@mediafire.com";
+
+    @TempDir
+    Path directory;
+
+    ReservationFileRepository repository;
+    ReservationImporter importer;
+
+    @BeforeEach
+    void setup() throws IOException {
+        copySeed(directory);
+        repository = new ReservationFileRepository(directory.toString());
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        importer = new ReservationImporter(
+                new ReservationService(repository, hostRepository, guestRepository),
+                new HostService(hostRepository), new GuestService(guestRepository), new PricingEngine());
+    }
+
+    @Test
+    void shouldAddValidRowsAndRejectTheRest() throws IOException, DataException {
+        int before = repository.findByHostId(HOST_ID).size();
+        Path input = write("reservations.csv",
+                "guest_email,host_email,start_date,end_date",
+                GUEST_EMAIL + "," + HOST_EMAIL + ",2031-06-01,2031-06-03",
+                GUEST_EMAIL + "," + HOST_EMAIL + ",2031-06-03,2031-06-05", //touches the row before it
+                GUEST_EMAIL + "," + HOST_EMAIL + ",2031-06-10,2031-06-12",
+                "nobody@example.com," + HOST_EMAIL + ",2031-07-01,2031-07-02",
+                GUEST_EMAIL + "," + HOST_EMAIL + ",06/01/2031,2031-07-02",
+                GUEST_EMAIL + "," + HOST_EMAIL);
+        Path rejects = directory.resolve("rejects.csv");
+
+        ImportSummary summary = importer.importFile(input.toString(), rejects.toString());
+
+        assertEquals(6, summary.getRowCount());
+        assertEquals(2, summary.getAcceptedCount());
+        assertEquals(4, summary.getRejectedCount());
+        assertEquals(1, summary.getHostCount());
+        assertEquals(before + 2, repository.findByHostId(HOST_ID).size());
+
+        List<String> lines = Files.readAllLines(rejects);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(1).startsWith("2,") && lines.get(1).endsWith("date must not overlap with existing reservation"));
+        assertTrue(lines.get(2).startsWith("4,") && lines.get(2).endsWith("guest cannot be found"));
+        assertTrue(lines.get(3).startsWith("5,") && lines.get(3).contains("start date must be a date"));
+        assertTrue(lines.get(4).startsWith("6,") && lines.get(4).endsWith("row must have 4 fields"));
+    }
+
+    @Test
+    void shouldMapCsvColumnsByHeaderName() throws IOException, DataException {
+        Path input = write("reservations.csv",
+                "start_date, END_DATE ,host_email,notes,guest_email",
+                "2031-06-01,2031-06-03," + HOST_EMAIL + ",late arrival," + GUEST_EMAIL,
+                "2031-06-04,2031-06-06,eyearnes0@sfgate.com,," + GUEST_EMAIL,
+                "2031-06-07,2031-06-09,krhodes1@posterous.com,," + GUEST_EMAIL);
+
+        ImportSummary summary = importer.importFile(input.toString(), directory.resolve("rejects.csv").toString());
+
+        assertEquals(3, summary.getAcceptedCount());
+        assertEquals(3, summary.getHostCount());
+        Reservation added = repository.findByHostId(HOST_ID).stream()
+                .filter(r -> r.getStartDate().getYear() == 2031)
+                .findFirst().orElseThrow();
+        assertEquals(LocalDate.of(2031,6,3), added.getEndDate());
+        assertEquals(1, added.getGuest().getId());
+        assertEquals(1, repository.findByHostId("3edda6bc-ab95-49a8-8962-d50b53f84b15").size());
+    }
+
+    @Test
+    void shouldRefuseCsvWithoutHeader() throws IOException {
+        int before = repository.findByHostId(HOST_ID).size();
+        Path input = write("reservations.csv",
+                GUEST_EMAIL + "," + HOST_EMAIL + ",2031-06-01,2031-06-03",
+                GUEST_EMAIL + "," + HOST_EMAIL + ",2031-06-10,2031-06-12");
+
+        DataException ex = assertThrows(DataException.class,
+                () -> importer.importFile(input.toString(), directory.resolve("rejects.csv").toString()));
+
+        assertTrue(ex.getMessage().contains("guest_email is missing"));
+        assertEquals(before, repository.findByHostId(HOST_ID).size());
+        assertThrows(DataException.class,
+                () -> importer.importFile(write("empty.csv").toString(), directory.resolve("rejects.csv").toString()));
+    }
+
+    @Test
+    void shouldImportJsonLines() throws IOException, DataException {
+        Path input = write("reservations.jsonl",
+                "{\"guest_email\": \"" + GUEST_EMAIL + "\", \"host_email\": \"" + HOST_EMAIL
+                        + "\", \"start_date\": \"2031-08-01\", \"end_date\": \"2031-08-04\"}",
+                "",
+                "not json");
+
+        ImportSummary summary = importer.importFile(input.toString(), directory.resolve("rejects.csv").toString());
+
+        assertEquals(2, summary.getRowCount());
+        assertEquals(1, summary.getAcceptedCount());
+        Reservation added = repository.findByHostId(HOST_ID).stream()
+                .filter(r -> r.getStartDate().getYear() == 2031)
+                .findFirst().orElseThrow();
+        assertEquals(1, added.getGuest().getId());
+        assertNotNull(added.getTotal());
+    }
+
+    @Test
+    void shouldParseFlatJsonObjects() {
+        assertEquals(Map.of("a", "1", "b", "x\"y"), ReservationImporter.parseObject(" { \"a\":\"1\" , \"b\":\"x\\\"y\" } "));
+        assertEquals(Map.of(), ReservationImporter.parseObject("{}"));
+        assertNull(ReservationImporter.parseObject("{\"a\": 1}"));
+        assertNull(ReservationImporter.parseObject("{\"a\": \"1\"} extra"));
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, List.of(lines));
+        return path;
+    }
+}
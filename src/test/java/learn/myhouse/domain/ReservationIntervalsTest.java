@@ -0,0 +1,93 @@
+package learn.myhouse.domain;
+
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIntervalsTest {
+
+    ReservationIntervals intervals;
+
+    @BeforeEach
+    void setup(){
+        intervals = ReservationIntervals.of(List.of(
+                reservation(1, LocalDate.of(2030,9,1), LocalDate.of(2030,9,10)),
+                reservation(2, LocalDate.of(2030,10,1), LocalDate.of(2030,10,5)),
+                reservation(3, LocalDate.of(2020,1,1), LocalDate.of(2020,1,5))));
+    }
+
+    @Test
+    void shouldFindOverlap(){
+        assertTrue(intervals.overlaps(LocalDate.of(2030,9,30), LocalDate.of(2030,10,3)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,10,2), LocalDate.of(2030,10,4)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,8,1), LocalDate.of(2030,11,1)));
+    }
+
+    @Test
+    void shouldTreatTouchingDatesAsOverlap(){
+        assertTrue(intervals.overlaps(LocalDate.of(2030,10,5), LocalDate.of(2030,10,8)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,8,25), LocalDate.of(2030,9,1)));
+    }
+
+    @Test
+    void shouldNotFindOverlapBetweenStays(){
+        assertFalse(intervals.overlaps(LocalDate.of(2030,9,11), LocalDate.of(2030,9,30)));
+        assertFalse(intervals.overlaps(LocalDate.of(2031,1,1), LocalDate.of(2031,1,5)));
+    }
+
+    @Test
+    void shouldIgnoreExcludedId(){
+        assertFalse(intervals.overlaps(LocalDate.of(2030,10,2), LocalDate.of(2030,10,8), 2));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,9,5), LocalDate.of(2030,10,8), 2));
+    }
+
+    @Test
+    void shouldFindOverlapHiddenByLongEarlierStay(){
+        intervals.put(reservation(4, LocalDate.of(2030,8,1), LocalDate.of(2030,12,31)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,11,1), LocalDate.of(2030,11,3)));
+    }
+
+    @Test
+    void shouldReplaceOnPut(){
+        intervals.put(reservation(2, LocalDate.of(2030,11,1), LocalDate.of(2030,11,5)));
+        assertEquals(3, intervals.size());
+        assertFalse(intervals.overlaps(LocalDate.of(2030,10,1), LocalDate.of(2030,10,5)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,11,3), LocalDate.of(2030,11,8)));
+    }
+
+    @Test
+    void shouldRemove(){
+        assertTrue(intervals.remove(1));
+        assertFalse(intervals.remove(1));
+        assertEquals(2, intervals.size());
+        assertFalse(intervals.overlaps(LocalDate.of(2030,9,2), LocalDate.of(2030,9,4)));
+        assertTrue(intervals.overlaps(LocalDate.of(2030,10,2), LocalDate.of(2030,10,4)));
+    }
+
+    @Test
+    void shouldBuildFromUnsortedStays(){
+        List<Reservation> reservations = new java.util.ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LocalDate start = LocalDate.of(2030,1,1).minusDays(i * 3L);
+            reservations.add(reservation(i + 1, start, start.plusDays(1)));
+        }
+        intervals = ReservationIntervals.of(reservations);
+
+        assertEquals(1000, intervals.size());
+        assertTrue(intervals.overlaps(LocalDate.of(2029,12,29), LocalDate.of(2029,12,29)));
+        assertFalse(intervals.overlaps(LocalDate.of(2029,12,31), LocalDate.of(2029,12,31)));
+        assertFalse(intervals.overlaps(LocalDate.of(2029,12,29), LocalDate.of(2029,12,29), 2));
+    }
+
+    private Reservation reservation(int id, LocalDate start, LocalDate end){
+        Reservation reservation = new Reservation(start, end, null, null, BigDecimal.TEN);
+        reservation.setId(id);
+        return reservation;
+    }
+}
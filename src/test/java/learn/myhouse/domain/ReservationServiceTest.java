@@ -1,18 +1,32 @@
 package learn.myhouse.domain;
 
 import learn.myhouse.data.DataException;
+import learn.myhouse.data.GuestFileRepository;
 import learn.myhouse.data.GuestRepositoryDouble;
+import learn.myhouse.data.HostFileRepository;
 import learn.myhouse.data.HostRepositoryDouble;
+import learn.myhouse.data.ReservationFileRepository;
 import learn.myhouse.data.ReservationRepositoryDouble;
 import learn.myhouse.model.Guest;
 import learn.myhouse.model.Host;
 import learn.myhouse.model.Reservation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +53,23 @@ class ReservationServiceTest {
 
     }
 
+    @Test
+    void shouldJoinHostAndGuests(){
+        List<Reservation> actual = service.findByHostId("12304cf-b7d1-4525-a372-2e8590fae173");
+        assertEquals(3,actual.size());
+        assertEquals("edenhazard@gmail.com",actual.get(0).getHost().getEmail());
+        assertEquals("romaribartley@gmail.com",actual.get(0).getGuest().getEmail());
+    }
+
+    @Test
+    void shouldFindReservationsForFoundHost(){
+        Host host = new HostService(new HostRepositoryDouble()).findByEmail("edenhazard@gmail.com");
+        List<Reservation> actual = service.findByHost(host);
+        assertEquals(3,actual.size());
+        assertSame(host,actual.get(0).getHost());
+        assertEquals("Romari",actual.get(0).getGuest().getFirstName());
+    }
+
     @Test
     void shouldAdd() throws DataException {
         Guest guest = new Guest();
@@ -809,6 +840,103 @@ class ReservationServiceTest {
 
     }
 
+    @Test
+    void shouldSeeOverlapWrittenBehindService(@TempDir Path directory) throws IOException, DataException {
+        String hostId = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+        Path file = directory.resolve(hostId + ".csv");
+        Files.write(file, List.of("id,start_date,end_date,guest_id,total"));
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        ReservationService fileService = new ReservationService(
+                new ReservationFileRepository(directory.toString()), hostRepository, guestRepository);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(1);
+
+        //building the host's overlap index
+        assertTrue(fileService.add(new Reservation(LocalDate.of(2031,3,1), LocalDate.of(2031,3,3),
+                guest, host, BigDecimal.TEN)).isSuccess());
+
+        //another process booking the host
+        Files.write(file, List.of("2,2031-04-01,2031-04-05,1,100"), StandardOpenOption.APPEND);
+
+        Result<Reservation> actual = fileService.add(new Reservation(LocalDate.of(2031,4,3), LocalDate.of(2031,4,6),
+                guest, host, BigDecimal.TEN));
+        assertFalse(actual.isSuccess());
+        assertEquals("date must not overlap with existing reservation", actual.getErrorMessages().get(0));
+    }
 
+    @Test
+    void shouldAddOnlyOneOfConcurrentOverlappingBookings(@TempDir Path directory) throws Exception {
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        ReservationFileRepository reservationRepository = new ReservationFileRepository(directory.toString());
+        ReservationService fileService = new ReservationService(reservationRepository, hostRepository, guestRepository);
+        Host host = hostRepository.findById("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        Guest guest = guestRepository.findById(1);
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result<Reservation>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return fileService.add(new Reservation(LocalDate.of(2031,7,1), LocalDate.of(2031,7,4),
+                        guest, host, BigDecimal.TEN));
+            }));
+        }
+        start.countDown();
+
+        int added = 0;
+        int overlapping = 0;
+        for (Future<Result<Reservation>> future : futures) {
+            Result<Reservation> result = future.get(10, TimeUnit.SECONDS);
+            if (result.isSuccess()) {
+                added++;
+            } else if (result.getErrorMessages().equals(List.of("date must not overlap with existing reservation"))) {
+                overlapping++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, added);
+        assertEquals(threads - 1, overlapping);
+        assertEquals(1, reservationRepository.findByHostId(host.getId()).size());
+    }
 
-}
\ No newline at end of file
+    @Test
+    void shouldAddForDifferentHostsAtTheSameTime(@TempDir Path directory) throws Exception {
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        //each add waits inside the repository until the other host's add has reached it too
+        CountDownLatch bothWriting = new CountDownLatch(2);
+        ReservationFileRepository reservationRepository = new ReservationFileRepository(directory.toString()) {
+            @Override
+            public Reservation add(Reservation reservation) throws DataException {
+                bothWriting.countDown();
+                try {
+                    assertTrue(bothWriting.await(10, TimeUnit.SECONDS), "the other host's add was blocked");
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.add(reservation);
+            }
+        };
+        ReservationService fileService = new ReservationService(reservationRepository, hostRepository, guestRepository);
+        Guest guest = guestRepository.findById(1);
+        List<Host> hosts = hostRepository.findAll().subList(0, 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Result<Reservation>>> futures = new ArrayList<>();
+        for (Host host : hosts) {
+            futures.add(executor.submit(() -> fileService.add(new Reservation(LocalDate.of(2031,7,1),
+                    LocalDate.of(2031,7,4), guest, host, BigDecimal.TEN))));
+        }
+
+        for (Future<Result<Reservation>> future : futures) {
+            assertTrue(future.get(20, TimeUnit.SECONDS).isSuccess());
+        }
+        executor.shutdown();
+        assertEquals(0, bothWriting.getCount());
+    }
+}
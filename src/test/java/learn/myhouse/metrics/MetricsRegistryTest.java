@@ -0,0 +1,73 @@
+package learn.myhouse.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+    MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void shouldReturnSameMetricForSameNameAndLabels() {
+        Counter counter = registry.counter("rows_total", "source", "csv");
+
+        assertSame(counter, registry.counter("rows_total", "source", "csv"));
+        assertNotSame(counter, registry.counter("rows_total", "source", "binary"));
+        assertThrows(IllegalArgumentException.class, () -> registry.timer("rows_total", "source", "csv"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("rows_total", "source"));
+    }
+
+    @Test
+    void shouldWriteCountersAndTimers() {
+        registry.counter("rows_total", "source", "csv").increment(3);
+        registry.counter("rows_total", "source", "a\"b").increment();
+        Timer timer = registry.timer("call_seconds", "method", "add");
+        timer.recordNanos(1_500_000_000L);
+        timer.recordNanos(500_000_000L);
+
+        String expected = "# TYPE call_seconds summary\n"
+                + "call_seconds_count{method=\"add\"} 2\n"
+                + "call_seconds_sum{method=\"add\"} 2\n"
+                + "call_seconds_max{method=\"add\"} 1.5\n"
+                + "# TYPE rows_total counter\n"
+                + "rows_total{source=\"a\\\"b\"} 1\n"
+                + "rows_total{source=\"csv\"} 3\n";
+        assertEquals(expected, registry.scrape());
+    }
+
+    @Test
+    void shouldWriteCumulativeHistogramBuckets() {
+        Histogram histogram = registry.histogram("size_bytes", new long[]{10, 100});
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(50);
+        histogram.record(1000);
+
+        String expected = "# TYPE size_bytes histogram\n"
+                + "size_bytes_bucket{le=\"10\"} 2\n"
+                + "size_bytes_bucket{le=\"100\"} 3\n"
+                + "size_bytes_bucket{le=\"+Inf\"} 4\n"
+                + "size_bytes_sum 1065\n"
+                + "size_bytes_count 4\n";
+        assertEquals(expected, registry.scrape());
+        assertEquals(4, histogram.getCount());
+    }
+
+    @Test
+    void shouldWriteToFile(@TempDir Path directory) throws IOException {
+        registry.counter("rows_total").increment();
+        Path file = directory.resolve("metrics.prom");
+
+        registry.writeTo(file);
+
+        assertEquals("# TYPE rows_total counter\nrows_total 1\n", Files.readString(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
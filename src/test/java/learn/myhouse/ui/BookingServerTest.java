@@ -0,0 +1,178 @@
+package learn.myhouse.ui;
+
+import learn.myhouse.data.GuestFileRepository;
+import learn.myhouse.data.HostFileRepository;
+import learn.myhouse.data.ReservationFileRepository;
+import learn.myhouse.data.ReservationIndex;
+import learn.myhouse.domain.GuestService;
+import learn.myhouse.domain.HostService;
+import learn.myhouse.domain.PricingEngine;
+import learn.myhouse.domain.ReservationSearchService;
+import learn.myhouse.domain.ReservationService;
+import learn.myhouse.metrics.Metrics;
+import learn.myhouse.model.Host;
+import learn.myhouse.model.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static learn.myhouse.data.ReservationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingServerTest {
+    static final String HOST = "host=kdeclerkdc%40sitemeter.com";
+    static final String GUEST = "guest=slomas0%40mediafire.com";
+
+    @TempDir
+    Path directory;
+
+    BookingServer server;
+    HttpClient client = HttpClient.newHttpClient();
+    String base;
+
+    @BeforeEach
+    void setup() throws IOException {
+        copySeed(directory);
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        ReservationFileRepository reservationRepository = new ReservationFileRepository(directory.toString());
+        server = new BookingServer(
+                new ReservationService(reservationRepository, hostRepository, guestRepository),
+                new ReservationSearchService(new ReservationIndex(reservationRepository), hostRepository, guestRepository),
+                new HostService(hostRepository), new GuestService(guestRepository), new PricingEngine());
+        InetSocketAddress address = server.start(0);
+        base = "http://" + address.getHostString() + ":" + address.getPort() + "/reservations";
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop();
+    }
+
+    @Test
+    void shouldAddUpdateAndDelete() throws Exception {
+        //a Thursday and a Friday night: 200 + 250
+        HttpResponse<String> added = send("POST", "", HOST + "&" + GUEST + "&start=2031-05-01&end=2031-05-03");
+        assertEquals(201, added.statusCode());
+        assertTrue(added.body().startsWith("{\"id\":13,\"hostId\":\"" + HOST_ID + "\",\"guestId\":1,"), added.body());
+        assertTrue(added.body().endsWith("\"startDate\":\"2031-05-01\",\"endDate\":\"2031-05-03\",\"total\":450}"), added.body());
+
+        HttpResponse<String> updated = send("PUT", "/13", HOST + "&start=2031-06-01&end=2031-06-02");
+        assertEquals(200, updated.statusCode());
+        assertTrue(updated.body().contains("\"startDate\":\"2031-06-01\",\"endDate\":\"2031-06-02\""));
+        assertTrue(send("GET", "?" + HOST, null).body().contains("\"id\":13,"));
+        assertTrue(send("GET", "?" + HOST, null).body().contains("\"startDate\":\"2031-06-01\""));
+
+        assertEquals(204, send("DELETE", "/13?" + HOST, null).statusCode());
+        assertFalse(send("GET", "?" + HOST, null).body().contains("\"id\":13,"));
+    }
+
+    @Test
+    void shouldFindAcrossHostsByGuestAndDates() throws Exception {
+        HttpResponse<String> byGuest = send("GET", "?guest=wkuhlie%40patch.com", null);
+        assertEquals(200, byGuest.statusCode());
+        assertTrue(byGuest.body().startsWith("[{\"id\":1,\"hostId\":\"" + HOST_ID + "\",\"guestId\":663,"
+                + "\"guestEmail\":\"wkuhlie@patch.com\",\"startDate\":\"2021-10-12\""), byGuest.body());
+
+        //a stay added over HTTP is found through the index straight away
+        send("POST", "", HOST + "&" + GUEST + "&start=2031-05-01&end=2031-05-03");
+        HttpResponse<String> byDates = send("GET", "?start=2031-05-03&end=2031-05-10", null);
+        assertEquals(200, byDates.statusCode());
+        assertTrue(byDates.body().startsWith("[{\"id\":13,"), byDates.body());
+        assertTrue(byDates.body().contains("\"guestEmail\":\"slomas0@mediafire.com\""));
+
+        assertEquals("[]", send("GET", "?start=2031-05-04&end=2031-05-10", null).body());
+        assertEquals(400, send("GET", "?start=2031-05-10&end=2031-05-04", null).statusCode());
+        assertEquals(400, send("GET", "?start=2031-05-10", null).statusCode());
+        assertEquals(400, send("GET", "?guest=nobody%40example.com", null).statusCode());
+    }
+
+    @Test
+    void shouldRejectBadRequests() throws Exception {
+        HttpResponse<String> badDate = send("POST", "", HOST + "&" + GUEST + "&start=05/01/2031&end=2031-05-03");
+        assertEquals(400, badDate.statusCode());
+
+        HttpResponse<String> missingHost = send("POST", "", GUEST + "&start=2031-05-01&end=2031-05-03");
+        assertEquals(400, missingHost.statusCode());
+        assertEquals("{\"errors\":[\"host is required\"]}", missingHost.body());
+
+        HttpResponse<String> unknownHost = send("GET", "?host=nobody%40example.com", null);
+        assertEquals(400, unknownHost.statusCode());
+        assertEquals("{\"errors\":[\"host does not exist\"]}", unknownHost.body());
+
+        assertEquals(400, send("PUT", "/abc", HOST + "&start=2031-06-01&end=2031-06-02").statusCode());
+        assertEquals(404, send("PUT", "/99", HOST + "&start=2031-06-01&end=2031-06-02").statusCode());
+        assertEquals(405, send("PATCH", "/1", HOST).statusCode());
+
+        //overlaps the reservation from 2021-10-12 to 2021-10-14, and is in the past
+        HttpResponse<String> invalid = send("POST", "", HOST + "&" + GUEST + "&start=2021-10-13&end=2021-10-15");
+        assertEquals(400, invalid.statusCode());
+        assertTrue(invalid.body().contains("start date must be in the future"));
+    }
+
+    @Test
+    void shouldAnswerUnexpectedErrors() throws Exception {
+        HostFileRepository hostRepository = new HostFileRepository("./data/hosts-test.csv");
+        GuestFileRepository guestRepository = new GuestFileRepository("./data/guests-test.csv");
+        ReservationFileRepository reservationRepository = new ReservationFileRepository(directory.toString());
+        ReservationService damaged = new ReservationService(reservationRepository, hostRepository, guestRepository) {
+            @Override
+            public List<Reservation> findByHost(Host host) {
+                throw new UncheckedIOException(new IOException("damaged file"));
+            }
+        };
+        server.stop();
+        server = new BookingServer(damaged,
+                new ReservationSearchService(new ReservationIndex(reservationRepository), hostRepository, guestRepository),
+                new HostService(hostRepository), new GuestService(guestRepository), new PricingEngine());
+        InetSocketAddress address = server.start(0);
+        base = "http://" + address.getHostString() + ":" + address.getPort() + "/reservations";
+        long before = Metrics.counter("unexpected_exceptions_total", "source", "http",
+                "exception", "UncheckedIOException").getCount();
+
+        HttpResponse<String> response = send("GET", "?" + HOST, null);
+
+        assertEquals(500, response.statusCode());
+        assertEquals("{\"errors\":[\"internal error: UncheckedIOException\"]}", response.body());
+        assertEquals(before + 1, Metrics.counter("unexpected_exceptions_total", "source", "http",
+                "exception", "UncheckedIOException").getCount());
+    }
+
+    @Test
+    void shouldServeMetrics() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base.replace("/reservations", "/metrics")))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+    }
+
+    @Test
+    void shouldDecodeForm() {
+        assertEquals(Map.of("a", "1+2", "b", "x y", "c", ""), BookingServer.parseForm("a=1%2B2&b=x+y&c"));
+        assertEquals(Map.of(), BookingServer.parseForm(null));
+    }
+
+    private HttpResponse<String> send(String method, String path, String form) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path));
+        if (form == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/x-www-form-urlencoded")
+                    .method(method, HttpRequest.BodyPublishers.ofString(form));
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}